@@ -0,0 +1,84 @@
+package com.order.benchmark;
+
+import com.order.discount.DiscountPlan;
+import com.order.discount.DiscountRule;
+import com.order.entities.OrderItem;
+import com.order.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountBenchmark {
+
+    @Param({"ROLE_USER", "ROLE_PREMIUM_USER"})
+    private String role;
+
+    @Param({"120.50", "980.00"})
+    private double subtotal;
+
+    /**
+     * 2 is the default rule set; the larger sizes pad it with product, role and expired
+     * promotion rules that do not apply to the benchmarked order.
+     */
+    @Param({"2", "300"})
+    private int ruleCount;
+
+    private List<DiscountRule> rules;
+    private DiscountPlan plan;
+    private List<OrderItem> items;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        rules = new ArrayList<>(StubProductCatalog.discountEngine().plan().rules());
+
+        Random random = new Random(42);
+        Instant expired = Instant.parse("2020-01-01T00:00:00Z");
+        for (int i = rules.size(); i < ruleCount; i++) {
+            DiscountRule.DiscountRuleBuilder rule = DiscountRule.builder()
+                    .id("padding-" + i)
+                    .percent(1 + random.nextInt(20))
+                    .priority(random.nextInt(100));
+            switch (i % 3) {
+                case 0 -> rule.productId(new UUID(random.nextLong(), random.nextLong()));
+                case 1 -> rule.role("ROLE_" + i);
+                default -> rule.startsAt(expired).endsAt(expired.plusSeconds(86_400));
+            }
+            rules.add(rule.build());
+        }
+
+        plan = DiscountPlan.compile(rules);
+        items = List.of(OrderItem.builder()
+                .productId(new UUID(random.nextLong(), random.nextLong()))
+                .quantity(1)
+                .unitPrice(Money.toMinor(BigDecimal.valueOf(subtotal)))
+                .totalPrice(Money.toMinor(BigDecimal.valueOf(subtotal)))
+                .build());
+        now = System.currentTimeMillis();
+    }
+
+    /**
+     * Role discount, then 5% off above 500 with the default rules.
+     */
+    @Benchmark
+    public long evaluate() {
+        return plan.apply(role, items, now);
+    }
+
+    @Benchmark
+    public DiscountPlan compile() {
+        return DiscountPlan.compile(rules);
+    }
+}
@@ -0,0 +1,87 @@
+package com.order.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.dto.OrderRequest;
+import com.order.dto.response.OrderResponse;
+import com.order.dto.response.PagedResponse;
+import com.order.service.OrderMapper;
+import com.order.service.OrderPricingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMappingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1", "10", "100"})
+    private int cartSize;
+
+    private ObjectMapper objectMapper;
+    private JavaType pagedResponseType;
+
+    private OrderResponse orderResponse;
+    private PagedResponse<OrderResponse> pagedResponse;
+    private String orderRequestJson;
+    private String orderResponseJson;
+    private String pagedResponseJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        pagedResponseType = objectMapper.getTypeFactory()
+                .constructParametricType(PagedResponse.class, OrderResponse.class);
+
+        StubProductCatalog catalog = new StubProductCatalog(cartSize);
+        OrderRequest request = catalog.cart();
+        OrderPricingService pricingService = StubProductCatalog.pricingService();
+
+        orderResponse = new OrderMapper().toResponse(pricingService.buildOrder(
+                "bench-user",
+                "ROLE_USER",
+                request.getItems(),
+                OrderPricingService.unitPrices(catalog.lookup(
+                        request.getItems().stream().map(OrderRequest.ItemRequest::getProductId).toList()))
+        ));
+        pagedResponse = new PagedResponse<>(
+                Collections.nCopies(PAGE_SIZE, orderResponse), 0, PAGE_SIZE, 1_000, 50, false);
+
+        orderRequestJson = objectMapper.writeValueAsString(request);
+        orderResponseJson = objectMapper.writeValueAsString(orderResponse);
+        pagedResponseJson = objectMapper.writeValueAsString(pagedResponse);
+    }
+
+    @Benchmark
+    public OrderRequest readOrderRequest() throws JsonProcessingException {
+        return objectMapper.readValue(orderRequestJson, OrderRequest.class);
+    }
+
+    @Benchmark
+    public String writeOrderResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(orderResponse);
+    }
+
+    @Benchmark
+    public OrderResponse readOrderResponse() throws JsonProcessingException {
+        return objectMapper.readValue(orderResponseJson, OrderResponse.class);
+    }
+
+    @Benchmark
+    public String writePagedResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(pagedResponse);
+    }
+
+    @Benchmark
+    public PagedResponse<OrderResponse> readPagedResponse() throws JsonProcessingException {
+        return objectMapper.readValue(pagedResponseJson, pagedResponseType);
+    }
+}
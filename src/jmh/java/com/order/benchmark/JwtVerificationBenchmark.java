@@ -0,0 +1,60 @@
+package com.order.benchmark;
+
+import com.order.config.JWTConfig;
+import com.order.security.JwtTokenVerifier;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET =
+            "thisIsMysecregtfrdesww233eggtffeeddgkjjhhtdhttebd54ndhdhfhhhshs8877465sbbdd";
+
+    private JwtTokenVerifier verifier;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JWTConfig jwtConfig = new JWTConfig();
+        jwtConfig.setSecret(SECRET);
+        jwtConfig.setExpiration(3_600_000);
+
+        verifier = new JwtTokenVerifier(jwtConfig, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+        token = Jwts.builder()
+                .setSubject("bench-user")
+                .claim("role", "USER")
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+    }
+
+    /** Repeated token: served from the verified-token cache. */
+    @Benchmark
+    public Object cachedVerify() {
+        return verifier.verify(token);
+    }
+
+    /** What the filter did before caching: derive the key and build a parser per request. */
+    @Benchmark
+    public Claims perRequestParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
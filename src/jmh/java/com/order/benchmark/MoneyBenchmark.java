@@ -0,0 +1,122 @@
+package com.order.benchmark;
+
+import com.order.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pricing kernel of a 100-item premium user cart - line totals, subtotal, 10% role
+ * discount, 5% over 500 and the split of the order discount across the lines - on
+ * {@code double} (the former representation), on {@code long} minor units and on
+ * {@link BigDecimal}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int ITEMS = 100;
+
+    private final int[] quantities = new int[ITEMS];
+
+    // line totals are kept the way OrderItem keeps them, so each path computes them once
+    private final double[] doublePrices = new double[ITEMS];
+    private final double[] doubleLines = new double[ITEMS];
+    private final double[] doubleDiscounts = new double[ITEMS];
+
+    private final long[] minorPrices = new long[ITEMS];
+    private final long[] minorLines = new long[ITEMS];
+    private final long[] minorDiscounts = new long[ITEMS];
+
+    private final BigDecimal[] decimalPrices = new BigDecimal[ITEMS];
+    private final BigDecimal[] decimalLines = new BigDecimal[ITEMS];
+    private final BigDecimal[] decimalDiscounts = new BigDecimal[ITEMS];
+
+    private final long roleFactor = Money.discountFactor(10);
+    private final long largeOrderFactor = Money.discountFactor(5);
+    private final long largeOrderThreshold = Money.toMinor(BigDecimal.valueOf(500));
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < ITEMS; i++) {
+            long cents = 100 + random.nextInt(20_000);
+            quantities[i] = 1 + random.nextInt(5);
+            minorPrices[i] = cents;
+            doublePrices[i] = cents / 100.0;
+            decimalPrices[i] = BigDecimal.valueOf(cents, 2);
+        }
+    }
+
+    @Benchmark
+    public double doubles() {
+        double subtotal = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            doubleLines[i] = doublePrices[i] * quantities[i];
+            subtotal += doubleLines[i];
+        }
+
+        double total = subtotal * 0.90;
+        if (total > 500) {
+            total *= 0.95;
+        }
+
+        double factor = total / subtotal;
+        for (int i = 0; i < ITEMS; i++) {
+            doubleDiscounts[i] = doubleLines[i] - doubleLines[i] * factor;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        long subtotal = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            minorLines[i] = Money.times(minorPrices[i], quantities[i]);
+            subtotal += minorLines[i];
+        }
+
+        long total = Money.applyFactor(subtotal, roleFactor);
+        if (total > largeOrderThreshold) {
+            total = Money.applyFactor(total, largeOrderFactor);
+        }
+
+        long orderDiscount = subtotal - total;
+        double ratio = (double) orderDiscount / subtotal;
+        long allocated = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            long share = Money.share(minorLines[i], ratio);
+            minorDiscounts[i] = share;
+            allocated += share;
+        }
+        minorDiscounts[0] += orderDiscount - allocated;
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimals() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < ITEMS; i++) {
+            decimalLines[i] = decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i]));
+            subtotal = subtotal.add(decimalLines[i]);
+        }
+
+        BigDecimal total = subtotal.multiply(new BigDecimal("0.90")).setScale(2, RoundingMode.HALF_UP);
+        if (total.compareTo(new BigDecimal("500")) > 0) {
+            total = total.multiply(new BigDecimal("0.95")).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        BigDecimal orderDiscount = subtotal.subtract(total);
+        for (int i = 0; i < ITEMS; i++) {
+            decimalDiscounts[i] = orderDiscount.multiply(decimalLines[i]).divide(subtotal, 2, RoundingMode.DOWN);
+        }
+        return total;
+    }
+}
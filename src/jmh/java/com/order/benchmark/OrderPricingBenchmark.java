@@ -0,0 +1,60 @@
+package com.order.benchmark;
+
+import com.order.dto.OrderRequest;
+import com.order.dto.response.OrderResponse;
+import com.order.dto.response.ProductResponse;
+import com.order.entities.Order;
+import com.order.service.OrderMapper;
+import com.order.service.OrderPricingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPricingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int cartSize;
+
+    private StubProductCatalog catalog;
+    private OrderPricingService pricingService;
+    private OrderMapper orderMapper;
+    private OrderRequest request;
+    private List<UUID> productIds;
+    private Order pricedOrder;
+
+    @Setup
+    public void setUp() {
+        catalog = new StubProductCatalog(cartSize);
+        pricingService = StubProductCatalog.pricingService();
+        orderMapper = new OrderMapper();
+        request = catalog.cart();
+        productIds = request.getItems().stream().map(OrderRequest.ItemRequest::getProductId).toList();
+        pricedOrder = price();
+    }
+
+    @Benchmark
+    public Order price() {
+        Map<UUID, ProductResponse> products = catalog.lookup(productIds);
+        return pricingService.buildOrder("bench-user", "ROLE_USER", request.getItems(),
+                OrderPricingService.unitPrices(products));
+    }
+
+    @Benchmark
+    public OrderResponse toResponse() {
+        return orderMapper.toResponse(pricedOrder);
+    }
+
+    @Benchmark
+    public OrderResponse priceAndMap() {
+        return orderMapper.toResponse(price());
+    }
+}
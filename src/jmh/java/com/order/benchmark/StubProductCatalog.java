@@ -0,0 +1,81 @@
+package com.order.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.discount.DiscountEngine;
+import com.order.dto.OrderRequest;
+import com.order.dto.response.ProductResponse;
+import com.order.metrics.OrderMetrics;
+import com.order.service.OrderPricingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.core.io.ClassPathResource;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * In-process stand-in for the product service: a fixed catalog with deterministic prices.
+ */
+final class StubProductCatalog {
+
+    private final Map<UUID, ProductResponse> products = new LinkedHashMap<>();
+
+    StubProductCatalog(int size) {
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            products.put(id, ProductResponse.builder()
+                    .id(id)
+                    .name("Product " + i)
+                    .price(BigDecimal.valueOf(100 + random.nextInt(20_000), 2))
+                    .quantity(1_000)
+                    .available(true)
+                    .build());
+        }
+    }
+
+    /**
+     * Pricing service wired as in the application, with metrics going to an in-memory registry.
+     */
+    static OrderPricingService pricingService() {
+        return new OrderPricingService(
+                discountEngine(),
+                new OrderMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry())
+        );
+    }
+
+    /**
+     * Discount engine loaded with the default rules shipped in {@code discount-rules.json}.
+     */
+    static DiscountEngine discountEngine() {
+        return new DiscountEngine(
+                new ClassPathResource("discount-rules.json"),
+                new ObjectMapper().findAndRegisterModules()
+        );
+    }
+
+    Map<UUID, ProductResponse> lookup(Collection<UUID> ids) {
+        Map<UUID, ProductResponse> result = new HashMap<>();
+        for (UUID id : ids) {
+            ProductResponse product = products.get(id);
+            if (product != null) {
+                result.put(id, product);
+            }
+        }
+        return result;
+    }
+
+    OrderRequest cart() {
+        List<OrderRequest.ItemRequest> items = new ArrayList<>(products.size());
+        int quantity = 1;
+        for (UUID id : products.keySet()) {
+            OrderRequest.ItemRequest item = new OrderRequest.ItemRequest();
+            item.setProductId(id);
+            item.setQuantity(quantity++ % 5 + 1);
+            items.add(item);
+        }
+        OrderRequest request = new OrderRequest();
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,59 @@
+package com.order.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The last {@code size} latencies of one product service endpoint, in a ring buffer.
+ * Percentiles are recomputed at most every {@link #REFRESH_NANOS}, so reading them on every
+ * call is cheap.
+ */
+final class LatencyWindow {
+
+    private static final long REFRESH_NANOS = 100_000_000L;
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private final int minSamples;
+
+    private volatile long[] sorted = new long[0];
+    private volatile long sortedAt;
+
+    LatencyWindow(int size, int minSamples) {
+        this.samples = new AtomicLongArray(size);
+        this.minSamples = minSamples;
+    }
+
+    void record(long nanos) {
+        long n = recorded.getAndIncrement();
+        samples.set((int) (n % samples.length()), nanos);
+    }
+
+    /**
+     * @return the latency at percentile {@code p} in nanoseconds, or -1 until enough
+     * samples have been recorded
+     */
+    long percentile(double p) {
+
+        long now = System.nanoTime();
+        long[] snapshot = sorted;
+
+        if (now - sortedAt > REFRESH_NANOS) {
+            int size = (int) Math.min(recorded.get(), samples.length());
+            snapshot = new long[size];
+            for (int i = 0; i < size; i++) {
+                snapshot[i] = samples.get(i);
+            }
+            Arrays.sort(snapshot);
+            sorted = snapshot;
+            sortedAt = now;
+        }
+
+        if (snapshot.length < minSamples) {
+            return -1;
+        }
+        int index = (int) Math.ceil(p * snapshot.length) - 1;
+        return snapshot[Math.max(0, Math.min(index, snapshot.length - 1))];
+    }
+}
@@ -0,0 +1,118 @@
+package com.order.client;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.order.dto.response.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, TTL-based cache of product snapshots (Caffeine, W-TinyLFU eviction), used by
+ * the multi-product lookups ({@code getProducts}). Concurrent misses for the same product id
+ * share a single upstream load, which runs on the calling thread.
+ */
+@Slf4j
+@Component
+public class ProductCache {
+
+    public static final String CACHE_NAME = "products";
+
+    private final boolean enabled;
+    private final AsyncCache<UUID, ProductResponse> cache;
+
+    public ProductCache(
+            @Value("${product.cache.enabled:true}") boolean enabled,
+            @Value("${product.cache.ttl:5m}") Duration ttl,
+            @Value("${product.cache.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Map<UUID, ProductResponse> getAll(
+            Collection<UUID> ids,
+            Function<Set<UUID>, Map<UUID, ProductResponse>> loader
+    ) {
+
+        if (!enabled) {
+            return loader.apply(new LinkedHashSet<>(ids));
+        }
+
+        CompletableFuture<Map<UUID, ProductResponse>> bulk = new CompletableFuture<>();
+        Set<UUID> missing = new LinkedHashSet<>();
+
+        CompletableFuture<Map<UUID, ProductResponse>> result = cache.getAll(ids, (keys, executor) -> {
+            missing.addAll(keys);
+            return bulk;
+        });
+
+        if (!missing.isEmpty()) {
+            try {
+                bulk.complete(loader.apply(missing));
+            } catch (RuntimeException e) {
+                bulk.completeExceptionally(e);
+            }
+        }
+
+        return join(result);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #getAll}: the loader returns a future instead of
+     * running on the calling thread.
+     */
+    public CompletableFuture<Map<UUID, ProductResponse>> getAllAsync(
+            Collection<UUID> ids,
+            Function<Set<UUID>, CompletableFuture<Map<UUID, ProductResponse>>> loader
+    ) {
+
+        if (!enabled) {
+            return loader.apply(new LinkedHashSet<>(ids));
+        }
+
+        return cache.getAll(ids, (keys, executor) -> loader.apply(new LinkedHashSet<>(keys)));
+    }
+
+    public void put(ProductResponse product) {
+        if (enabled && product != null && product.getId() != null) {
+            cache.put(product.getId(), CompletableFuture.completedFuture(product));
+        }
+    }
+
+    public void invalidate(UUID id) {
+        log.info("Invalidating cached product {}", id);
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidateAll() {
+        log.info("Invalidating all cached products");
+        cache.synchronous().invalidateAll();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
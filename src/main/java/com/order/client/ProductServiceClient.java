@@ -2,70 +2,471 @@ package com.order.client;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.dto.BatchStockDeductRequest;
+import com.order.dto.BatchStockReservationRequest;
 import com.order.dto.StockCheckRequest;
 import com.order.dto.StockDeductRequest;
+import com.order.dto.StockReservationRequest;
+import com.order.dto.response.BatchStockDeductResponse;
+import com.order.dto.response.BatchStockReservationResponse;
 import com.order.dto.response.ProductResponse;
+import com.order.dto.response.StockReservationResponse;
+import com.order.exception.ProductServiceException;
+import com.order.exception.ProductServiceUnavailableException;
+import com.order.metrics.OrderMetrics;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
-import java.util.List;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Component
 @RequiredArgsConstructor
 public class ProductServiceClient {
 
     private final RestTemplate restTemplate;
+    private final ProductCache productCache;
+    private final ProductServiceResilience resilience;
+    private final OrderMetrics orderMetrics;
+    private final StockAdmissionGate stockAdmissionGate;
+
+    @Qualifier("productLookupExecutor")
+    private final ExecutorService productLookupExecutor;
 
     @Value("${product.service.url}")
     private String productServiceUrl;
 
+    @Value("${product.service.batch-lookup-enabled:false}")
+    private boolean batchLookupEnabled;
+
+    @Value("${product.service.lookup-parallelism:8}")
+    private int lookupParallelism;
+
+    @Value("${product.service.lookup-timeout:10s}")
+    private Duration lookupTimeout;
+
     public void validateStock(List<StockCheckRequest> request, String jwtToken) {
-        callPost("/validate-stock", request, jwtToken);
+        callPost(ProductServiceResilience.VALIDATE_STOCK, "/validate-stock", request, jwtToken);
     }
 
     public void deductStock(List<StockDeductRequest> request, String jwtToken) {
-        callPost("/deduct-stock", request, jwtToken);
+        deductStock(request, jwtToken, null);
+    }
+
+    public void deductStock(List<StockDeductRequest> request, String jwtToken, UUID idempotencyKey) {
+        long startedAt = System.nanoTime();
+        callPost(ProductServiceResilience.DEDUCT_STOCK, "/deduct-stock", request, jwtToken, idempotencyKey);
+        stockAdmissionGate.deducted(request, startedAt);
     }
 
     public void restoreStock(List<StockDeductRequest> request, String jwtToken) {
-        callPost("/restore-stock", request, jwtToken);
+        callPost(ProductServiceResilience.RESTORE_STOCK, "/restore-stock", request, jwtToken);
+        stockAdmissionGate.restored(request);
+    }
+
+    public void restoreStock(List<StockDeductRequest> request, String jwtToken, UUID idempotencyKey) {
+        callPost(ProductServiceResilience.RESTORE_STOCK, "/restore-stock", request, jwtToken, idempotencyKey);
+        stockAdmissionGate.restored(request);
+    }
+
+    /**
+     * Validates, prices and reserves the requested quantities in one exchange. The reservation
+     * holds the stock until it is confirmed or released, or until {@code ttl} elapses.
+     */
+    public StockReservationResponse reserveStock(List<StockCheckRequest> items, Duration ttl, String jwtToken) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                new StockReservationRequest(items, ttl.toSeconds()),
+                headers
+        );
+
+        try {
+            return resilience.execute(ProductServiceResilience.RESERVATIONS, () -> restTemplate.postForObject(
+                    productServiceUrl + "/reservations",
+                    entity,
+                    StockReservationResponse.class
+            ));
+        } catch (ProductServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed calling Product Service endpoint: /reservations", e);
+        }
+    }
+
+    /**
+     * Reserves stock for several independent orders in one exchange. Each entry is accepted or
+     * rejected on its own; the result is keyed by the entry reference.
+     */
+    public Map<String, BatchStockReservationResponse.Result> reserveStockBatch(
+            List<BatchStockReservationRequest.Entry> reservations,
+            Duration ttl,
+            String jwtToken
+    ) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<Object> entity = new HttpEntity<>(
+                new BatchStockReservationRequest(reservations, ttl.toSeconds()),
+                headers
+        );
+
+        BatchStockReservationResponse response;
+        try {
+            response = resilience.execute(ProductServiceResilience.RESERVATIONS, () -> restTemplate.postForObject(
+                    productServiceUrl + "/reservations/batch",
+                    entity,
+                    BatchStockReservationResponse.class
+            ));
+        } catch (ProductServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed calling Product Service endpoint: /reservations/batch", e);
+        }
+
+        Map<String, BatchStockReservationResponse.Result> results = new HashMap<>();
+        if (response != null && response.getResults() != null) {
+            response.getResults().forEach(r -> results.put(r.getReference(), r));
+        }
+        return results;
+    }
+
+    /**
+     * Deducts stock for several independent orders in one exchange. Each entry succeeds or
+     * fails on its own; the result is keyed by the entry reference.
+     */
+    public Map<String, BatchStockDeductResponse.Result> deductStockBatch(
+            List<BatchStockDeductRequest.Entry> deductions,
+            String jwtToken
+    ) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + jwtToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<Object> entity = new HttpEntity<>(new BatchStockDeductRequest(deductions), headers);
+
+        long startedAt = System.nanoTime();
+        BatchStockDeductResponse response;
+        try {
+            response = resilience.execute(ProductServiceResilience.DEDUCT_STOCK, () -> restTemplate.postForObject(
+                    productServiceUrl + "/deduct-stock/batch",
+                    entity,
+                    BatchStockDeductResponse.class
+            ));
+        } catch (ProductServiceUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed calling Product Service endpoint: /deduct-stock/batch", e);
+        }
+
+        Map<String, BatchStockDeductResponse.Result> results = new HashMap<>();
+        if (response != null && response.getResults() != null) {
+            response.getResults().forEach(r -> results.put(r.getReference(), r));
+        }
+
+        for (BatchStockDeductRequest.Entry deduction : deductions) {
+            BatchStockDeductResponse.Result result = results.get(deduction.getReference());
+            if (result != null && result.isDeducted()) {
+                stockAdmissionGate.deducted(deduction.getItems(), startedAt);
+            }
+        }
+        return results;
+    }
+
+    public void confirmReservation(UUID reservationId, String jwtToken, UUID idempotencyKey) {
+        callPost(ProductServiceResilience.RESERVATIONS, "/reservations/" + reservationId + "/confirm", null, jwtToken, idempotencyKey);
     }
 
-    private void callPost(String endpoint, Object body, String jwtToken) {
+    public void releaseReservation(UUID reservationId, String jwtToken, UUID idempotencyKey) {
+        callPost(ProductServiceResilience.RESERVATIONS, "/reservations/" + reservationId + "/release", null, jwtToken, idempotencyKey);
+    }
+
+    private void callPost(String circuit, String endpoint, Object body, String jwtToken) {
+        callPost(circuit, endpoint, body, jwtToken, null);
+    }
+
+    private void callPost(String circuit, String endpoint, Object body, String jwtToken, UUID idempotencyKey) {
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + jwtToken);
         headers.setContentType(MediaType.APPLICATION_JSON);
+        if (idempotencyKey != null) {
+            headers.set("Idempotency-Key", idempotencyKey.toString());
+        }
 
         HttpEntity<Object> entity = new HttpEntity<>(body, headers);
 
         String url = productServiceUrl + endpoint;
 
         try {
-            restTemplate.postForEntity(url, entity, Void.class);
+            resilience.run(circuit, () -> restTemplate.postForEntity(url, entity, Void.class));
+        } catch (ProductServiceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed calling Product Service endpoint: " + endpoint, e);
         }
     }
 
-    public ProductResponse getProduct(UUID id, String token) {
+    /**
+     * Sends a second, identical GET when the first has not answered within the recent p95
+     * latency of the endpoint, and returns whichever answers first. The hedge needs a spare
+     * lookup permit of the calling fan-out and passes the bulkhead like any other call; without
+     * a spare permit the lookup just keeps waiting for the first GET. Whichever GET is still
+     * running when the lookup returns or is interrupted gets interrupted as well.
+     */
+    private ProductResponse fetchProductHedged(UUID id, String token, Semaphore permits) {
+
+        Duration hedgeDelay = resilience.hedgeDelay(ProductServiceResilience.PRODUCT_GET);
+        if (hedgeDelay == null) {
+            return fetchProduct(id, token);
+        }
+
+        CompletableFuture<ProductResponse> primary = new CompletableFuture<>();
+        List<Future<?>> running = new ArrayList<>(2);
+        running.add(submit(primary, () -> fetchProduct(id, token)));
+
+        try {
+            return primary.get(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!permits.tryAcquire()) {
+                return join(primary, id);
+            }
+            resilience.hedgeFired(ProductServiceResilience.PRODUCT_GET);
+            CompletableFuture<ProductResponse> hedge = new CompletableFuture<>();
+            running.add(submit(hedge, () -> {
+                try {
+                    return fetchProduct(id, token);
+                } finally {
+                    permits.release();
+                }
+            }));
+            return firstSuccessful(primary, hedge, id, () -> resilience.hedgeWon(ProductServiceResilience.PRODUCT_GET));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Product lookup interrupted: " + id);
+        } finally {
+            running.forEach(task -> task.cancel(true));
+        }
+    }
+
+    /**
+     * Runs {@code lookup} on the lookup executor and completes {@code result} with its outcome.
+     * Unlike {@code CompletableFuture.supplyAsync}, the returned future interrupts the lookup
+     * thread when cancelled.
+     */
+    private <T> Future<?> submit(CompletableFuture<T> result, Supplier<T> lookup) {
+        return productLookupExecutor.submit(() -> {
+            try {
+                result.complete(lookup.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private static <T> T firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second, UUID id, Runnable onSecondWon) {
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        first.whenComplete((value, error) -> {
+            if (error == null) {
+                winner.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        });
+        second.whenComplete((value, error) -> {
+            if (error == null) {
+                if (winner.complete(value)) {
+                    onSecondWon.run();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        });
+
+        return join(winner, id);
+    }
+
+    private static <T> T join(CompletableFuture<T> future, UUID id) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Product lookup interrupted: " + id);
+        }
+    }
+
+    private ProductResponse fetchProduct(UUID id, String token) {
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + token);
 
         HttpEntity<?> entity = new HttpEntity<>(headers);
 
-        ResponseEntity<ProductResponse> response = restTemplate.exchange(
-                productServiceUrl + "/" + id,
-                HttpMethod.GET,
-                entity,
-                ProductResponse.class
+        long startedAt = System.nanoTime();
+        ProductResponse product = orderMetrics.productFetchItem(() -> resilience.execute(ProductServiceResilience.PRODUCT_GET,
+                () -> restTemplate.exchange(
+                        productServiceUrl + "/{id}",
+                        HttpMethod.GET,
+                        entity,
+                        ProductResponse.class,
+                        id
+                ).getBody()));
+        stockAdmissionGate.observe(product, startedAt);
+        return product;
+    }
+
+    /**
+     * Looks up several products at once. Uses the product service batch endpoint when
+     * enabled, otherwise runs one virtual thread per single lookup, at most
+     * {@code product.service.lookup-parallelism} at a time, and gives up on the whole set after
+     * {@code product.service.lookup-timeout}.
+     * Cached snapshots are served locally; only the misses reach the product service.
+     * Ids the product service does not know are absent from the returned map.
+     */
+    public Map<UUID, ProductResponse> getProducts(Collection<UUID> ids, String token) {
+
+        Set<UUID> distinctIds = new LinkedHashSet<>(ids);
+
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return productCache.getAll(distinctIds, missing -> batchLookupEnabled
+                ? getProductsBatch(missing, token)
+                : getProductsConcurrently(missing, token));
+    }
+
+    /**
+     * Reads the products from the product service, bypassing and then updating the cache.
+     */
+    public Map<UUID, ProductResponse> refreshProducts(Collection<UUID> ids, String token) {
+
+        Set<UUID> distinctIds = new LinkedHashSet<>(ids);
+
+        Map<UUID, ProductResponse> products = batchLookupEnabled
+                ? getProductsBatch(distinctIds, token)
+                : getProductsConcurrently(distinctIds, token);
+        products.values().forEach(productCache::put);
+        return products;
+    }
+
+    private Map<UUID, ProductResponse> getProductsBatch(Set<UUID> ids, String token) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + token);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<Object> entity = new HttpEntity<>(ids, headers);
+
+        long startedAt = System.nanoTime();
+        ResponseEntity<List<ProductResponse>> response = resilience.execute(
+                ProductServiceResilience.PRODUCT_BATCH,
+                () -> restTemplate.exchange(
+                        productServiceUrl + "/batch",
+                        HttpMethod.POST,
+                        entity,
+                        new ParameterizedTypeReference<List<ProductResponse>>() {}
+                )
         );
 
-        return response.getBody();
+        Map<UUID, ProductResponse> products = new LinkedHashMap<>();
+        if (response.getBody() != null) {
+            response.getBody().forEach(p -> products.put(p.getId(), p));
+        }
+        stockAdmissionGate.observeAll(products.values(), startedAt);
+        return products;
+    }
+
+    /**
+     * Fans the single lookups out on the shared virtual-thread lookup executor, at most
+     * {@code lookup-parallelism} at a time for this call, and gives up on the whole set after
+     * {@code product.service.lookup-timeout}. When the set fails, the lookups still running are
+     * interrupted.
+     */
+    private Map<UUID, ProductResponse> getProductsConcurrently(Set<UUID> ids, String token) {
+
+        long deadline = System.nanoTime() + lookupTimeout.toNanos();
+        Semaphore permits = new Semaphore(lookupParallelism);
+
+        Map<UUID, Future<ProductResponse>> lookups = new LinkedHashMap<>();
+        for (UUID id : ids) {
+            lookups.put(id, productLookupExecutor.submit(() -> fetchProduct(id, token, permits, deadline)));
+        }
+
+        Map<UUID, ProductResponse> products = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<UUID, Future<ProductResponse>> lookup : lookups.entrySet()) {
+                ProductResponse product = lookup.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (product != null) {
+                    products.put(lookup.getKey(), product);
+                }
+            }
+        } catch (TimeoutException e) {
+            lookups.values().forEach(f -> f.cancel(true));
+            throw new ProductServiceException("Product lookups did not finish within " + lookupTimeout, e);
+        } catch (ExecutionException e) {
+            lookups.values().forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lookups.values().forEach(f -> f.cancel(true));
+            throw new CancellationException("Product lookups interrupted");
+        }
+        return products;
+    }
+
+    private ProductResponse fetchProduct(UUID id, String token, Semaphore permits, long deadline) {
+
+        try {
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new ProductServiceException("Product lookup not started within " + lookupTimeout + ": " + id);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Product lookup interrupted: " + id);
+        }
+        try {
+            return fetchProductHedged(id, token, permits);
+        } finally {
+            permits.release();
+        }
     }
 
     private String extractMessage(String jsonBody) {
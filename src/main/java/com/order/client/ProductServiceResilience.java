@@ -0,0 +1,234 @@
+package com.order.client;
+
+import com.order.config.ProductServiceResilienceConfig;
+import com.order.exception.ProductServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to the product service. Every call passes a shared concurrency bulkhead and
+ * the circuit breaker of its endpoint; when either rejects it, the call fails fast with
+ * {@link ProductServiceUnavailableException} instead of tying up a request thread.
+ * <p>
+ * Successful latencies are tracked per endpoint and turned into a response timeout of
+ * {@code timeoutPercentile * timeoutMultiplier}, clamped between the configured bounds.
+ * The timeout is handed to the HTTP client through {@link #currentTimeout()}.
+ * Breaker and bulkhead settings live under {@code resilience4j.*}, and their state and
+ * metrics are exported through actuator.
+ */
+@Slf4j
+@Component
+public class ProductServiceResilience {
+
+    public static final String VALIDATE_STOCK = "product-validate-stock";
+    public static final String DEDUCT_STOCK = "product-deduct-stock";
+    public static final String RESTORE_STOCK = "product-restore-stock";
+    public static final String RESERVATIONS = "product-reservations";
+    public static final String PRODUCT_GET = "product-get";
+    public static final String PRODUCT_BATCH = "product-batch";
+
+    private static final String BULKHEAD = "product-service";
+
+    private static final ThreadLocal<Duration> CURRENT_TIMEOUT = new ThreadLocal<>();
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final Bulkhead bulkhead;
+    private final ProductServiceResilienceConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public ProductServiceResilience(
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            ProductServiceResilienceConfig config,
+            MeterRegistry meterRegistry
+    ) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkhead = bulkheadRegistry.bulkhead(BULKHEAD);
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * The response timeout for the product service call running on this thread, or
+     * {@code null} outside of {@link #execute}.
+     */
+    public static Duration currentTimeout() {
+        return CURRENT_TIMEOUT.get();
+    }
+
+    public void run(String endpoint, Runnable call) {
+        execute(endpoint, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(String endpoint, Supplier<T> call) {
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(endpoint);
+        LatencyWindow window = window(endpoint);
+        Duration timeout = timeout(window);
+
+        Supplier<T> timed = () -> {
+            Duration previous = CURRENT_TIMEOUT.get();
+            CURRENT_TIMEOUT.set(timeout);
+            long start = System.nanoTime();
+            try {
+                T result = call.get();
+                window.record(System.nanoTime() - start);
+                return result;
+            } finally {
+                if (previous == null) {
+                    CURRENT_TIMEOUT.remove();
+                } else {
+                    CURRENT_TIMEOUT.set(previous);
+                }
+            }
+        };
+
+        try {
+            return Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, timed)).get();
+        } catch (CallNotPermittedException e) {
+            log.atWarn().addKeyValue("endpoint", endpoint).log("Product service circuit open, failing fast");
+            throw new ProductServiceUnavailableException("Product service unavailable: " + endpoint, e);
+        } catch (BulkheadFullException e) {
+            log.atWarn().addKeyValue("endpoint", endpoint).log("Product service bulkhead full, failing fast");
+            throw new ProductServiceUnavailableException("Product service busy: " + endpoint, e);
+        }
+    }
+
+    /**
+     * Reactive counterpart of {@link #execute}: the call passes the same bulkhead and circuit
+     * breaker and is bounded by the same adaptive timeout, applied with {@link Mono#timeout}.
+     * The bulkhead may wait up to its {@code max-wait-duration} for a permit, so permits are
+     * taken on the bounded elastic scheduler rather than on an event loop.
+     */
+    public <T> Mono<T> executeReactive(String endpoint, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(endpoint);
+            LatencyWindow window = window(endpoint);
+            Duration timeout = timeout(window);
+
+            if (!bulkhead.tryAcquirePermission()) {
+                log.atWarn().addKeyValue("endpoint", endpoint).log("Product service bulkhead full, failing fast");
+                return Mono.error(new ProductServiceUnavailableException("Product service busy: " + endpoint,
+                        BulkheadFullException.createBulkheadFullException(bulkhead)));
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                bulkhead.onComplete();
+                log.atWarn().addKeyValue("endpoint", endpoint).log("Product service circuit open, failing fast");
+                return Mono.error(new ProductServiceUnavailableException("Product service unavailable: " + endpoint,
+                        CallNotPermittedException.createCallNotPermittedException(circuitBreaker)));
+            }
+
+            long start = System.nanoTime();
+            AtomicBoolean finished = new AtomicBoolean();
+
+            return Mono.defer(call)
+                    .timeout(timeout)
+                    .doOnSuccess(result -> {
+                        if (finished.compareAndSet(false, true)) {
+                            long elapsed = System.nanoTime() - start;
+                            window.record(elapsed);
+                            circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                            bulkhead.onComplete();
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (finished.compareAndSet(false, true)) {
+                            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                            bulkhead.onComplete();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (finished.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                            bulkhead.onComplete();
+                        }
+                    });
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Duration timeout(String endpoint) {
+        return timeout(window(endpoint));
+    }
+
+    private Duration timeout(LatencyWindow window) {
+        long p = window.percentile(config.getTimeoutPercentile());
+        if (p < 0) {
+            return config.getMaxTimeout();
+        }
+        return clamp(Duration.ofNanos((long) (p * config.getTimeoutMultiplier())),
+                config.getMinTimeout(), config.getMaxTimeout());
+    }
+
+    /**
+     * How long a read waits before a hedged duplicate is sent, or {@code null} when hedging
+     * is disabled or there is not enough latency history yet.
+     */
+    public Duration hedgeDelay(String endpoint) {
+        if (!config.isHedgeEnabled()) {
+            return null;
+        }
+        long p = window(endpoint).percentile(config.getHedgePercentile());
+        if (p < 0) {
+            return null;
+        }
+        return clamp(Duration.ofNanos(p), config.getMinHedgeDelay(), config.getMaxTimeout());
+    }
+
+    public void hedgeFired(String endpoint) {
+        meterRegistry.counter("product.service.hedges", "endpoint", endpoint, "outcome", "fired").increment();
+    }
+
+    public void hedgeWon(String endpoint) {
+        meterRegistry.counter("product.service.hedges", "endpoint", endpoint, "outcome", "won").increment();
+    }
+
+    private LatencyWindow window(String endpoint) {
+
+        LatencyWindow window = latencies.get(endpoint);
+        if (window != null) {
+            return window;
+        }
+
+        LatencyWindow created = new LatencyWindow(config.getLatencyWindowSize(), config.getMinLatencySamples());
+        window = latencies.putIfAbsent(endpoint, created);
+        if (window != null) {
+            return window;
+        }
+
+        Gauge.builder("product.service.adaptive.timeout", created, w -> timeout(w).toMillis())
+                .tag("endpoint", endpoint)
+                .baseUnit("milliseconds")
+                .description("Current adaptive response timeout for the product service endpoint")
+                .register(meterRegistry);
+        return created;
+    }
+
+    private static Duration clamp(Duration value, Duration min, Duration max) {
+        if (value.compareTo(min) < 0) {
+            return min;
+        }
+        return value.compareTo(max) > 0 ? max : value;
+    }
+}
@@ -0,0 +1,129 @@
+package com.order.client;
+
+import com.order.dto.StockCheckRequest;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.ProductResponse;
+import com.order.exception.ProductServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+
+/**
+ * Non-blocking counterpart of {@link ProductServiceClient}, used by the reactive placement
+ * pipeline. Shares the product cache, the {@link ProductServiceResilience} breakers and bulkhead
+ * and the {@link StockAdmissionGate} with the blocking client. With deduction batching enabled,
+ * deductions join the {@link StockDeductionBatcher} queue from a bounded elastic thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveProductServiceClient {
+
+    @Qualifier("productServiceWebClient")
+    private final WebClient webClient;
+
+    private final ProductCache productCache;
+    private final ProductServiceResilience resilience;
+    private final StockAdmissionGate stockAdmissionGate;
+    private final StockDeductionBatcher stockDeductionBatcher;
+
+    @Value("${product.service.batch-lookup-enabled:false}")
+    private boolean batchLookupEnabled;
+
+    @Value("${product.service.lookup-parallelism:8}")
+    private int lookupParallelism;
+
+    public Mono<Void> validateStock(List<StockCheckRequest> request, String jwtToken) {
+        return callPost(ProductServiceResilience.VALIDATE_STOCK, "/validate-stock", request, jwtToken);
+    }
+
+    /**
+     * @param reference sent as the {@code Idempotency-Key} (or batch entry reference) of the deduction
+     */
+    public Mono<Void> deductStock(List<StockDeductRequest> request, String jwtToken, UUID reference) {
+
+        if (stockDeductionBatcher.isEnabled()) {
+            return Mono.<Void>fromRunnable(() -> stockDeductionBatcher.deduct(request, jwtToken, reference))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return callPost(ProductServiceResilience.DEDUCT_STOCK, "/deduct-stock", request, jwtToken, reference)
+                    .doOnSuccess(ignored -> stockAdmissionGate.deducted(request, startedAt));
+        });
+    }
+
+    public Mono<Map<UUID, ProductResponse>> getProducts(Collection<UUID> ids, String token) {
+
+        Set<UUID> distinctIds = new LinkedHashSet<>(ids);
+
+        if (distinctIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return Mono.fromFuture(() -> productCache.getAllAsync(distinctIds, missing -> batchLookupEnabled
+                ? getProductsBatch(missing, token).toFuture()
+                : getProductsConcurrently(missing, token).toFuture()));
+    }
+
+    private Mono<Map<UUID, ProductResponse>> getProductsBatch(Set<UUID> ids, String token) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return resilience.executeReactive(ProductServiceResilience.PRODUCT_BATCH, () -> webClient.post()
+                            .uri("/batch")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .bodyValue(ids)
+                            .retrieve()
+                            .bodyToFlux(ProductResponse.class)
+                            .collectMap(ProductResponse::getId))
+                    .doOnNext(products -> stockAdmissionGate.observeAll(products.values(), startedAt));
+        });
+    }
+
+    private Mono<Map<UUID, ProductResponse>> getProductsConcurrently(Set<UUID> ids, String token) {
+        return Flux.fromIterable(ids)
+                .flatMap(id -> getProduct(id, token), lookupParallelism)
+                .collectMap(ProductResponse::getId);
+    }
+
+    private Mono<ProductResponse> getProduct(UUID id, String token) {
+        return Mono.defer(() -> {
+            long startedAt = System.nanoTime();
+            return resilience.executeReactive(ProductServiceResilience.PRODUCT_GET, () -> webClient.get()
+                            .uri("/{id}", id)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .retrieve()
+                            .bodyToMono(ProductResponse.class))
+                    .doOnNext(product -> stockAdmissionGate.observe(product, startedAt));
+        });
+    }
+
+    private Mono<Void> callPost(String circuit, String endpoint, Object body, String jwtToken) {
+        return callPost(circuit, endpoint, body, jwtToken, null);
+    }
+
+    private Mono<Void> callPost(String circuit, String endpoint, Object body, String jwtToken, UUID idempotencyKey) {
+        return resilience.executeReactive(circuit, () -> webClient.post()
+                        .uri(endpoint)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtToken)
+                        .headers(headers -> {
+                            if (idempotencyKey != null) {
+                                headers.set("Idempotency-Key", idempotencyKey.toString());
+                            }
+                        })
+                        .bodyValue(body)
+                        .retrieve()
+                        .toBodilessEntity()
+                        .then())
+                .onErrorMap(e -> !(e instanceof ProductServiceUnavailableException),
+                        e -> new RuntimeException("Failed calling Product Service endpoint: " + endpoint, e));
+    }
+}
@@ -0,0 +1,169 @@
+package com.order.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.order.dto.StockCheckRequest;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.ProductResponse;
+import com.order.exception.StockUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Approximate, lock-free view of per-product availability used to turn away orders for products
+ * known to be sold out before any product service call. Each entry starts from a product
+ * snapshot fetched from the product service and is adjusted by this instance's deductions and
+ * restores; it expires {@code freshness} after the snapshot, so only recent knowledge is used.
+ * <p>
+ * A snapshot remembers when its fetch started and when it arrived. A deduction is subtracted only
+ * if it started after the snapshot arrived, since an earlier one may already be counted in it; a
+ * restore is added unless it finished before the fetch started.
+ * <p>
+ * Only a fresh entry showing less stock than requested (or an unorderable product) rejects.
+ * Products without an entry pass through to the product service, which stays the authority;
+ * deductions by other instances only make the view optimistic, never stricter.
+ */
+@Component
+public class StockAdmissionGate {
+
+    public static final String CACHE_NAME = "stock-admission";
+
+    private final boolean enabled;
+    private final Cache<UUID, Availability> availability;
+    private final Counter rejected;
+    private final Counter admitted;
+
+    public StockAdmissionGate(
+            @Value("${product.stock-admission.enabled:false}") boolean enabled,
+            @Value("${product.stock-admission.freshness:5s}") Duration freshness,
+            @Value("${product.stock-admission.max-size:10000}") long maxSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.availability = Caffeine.newBuilder()
+                .expireAfterWrite(freshness)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.rejected = Counter.builder("product.stock.admission")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        this.admitted = Counter.builder("product.stock.admission")
+                .tag("result", "admitted")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, availability, CACHE_NAME);
+    }
+
+    /**
+     * Throws {@link StockUnavailableException} when the local view says some item clearly
+     * cannot be served; otherwise the request goes on to the product service.
+     */
+    public void admit(List<StockCheckRequest> items) {
+
+        if (!enabled) {
+            return;
+        }
+
+        for (StockCheckRequest item : items) {
+            Availability known = availability.getIfPresent(item.getProductId());
+            if (known == null) {
+                continue;
+            }
+            known.requested = true;
+            if (!known.orderable || known.quantity.sum() < item.getQuantity()) {
+                rejected.increment();
+                throw new StockUnavailableException("Insufficient stock for product: " + item.getProductId());
+            }
+        }
+        admitted.increment();
+    }
+
+    /**
+     * @param fetchStartedAt {@link System#nanoTime()} taken before the product was requested
+     */
+    public void observe(ProductResponse product, long fetchStartedAt) {
+        if (enabled && product != null && product.getId() != null && product.getQuantity() != null) {
+            availability.put(product.getId(), new Availability(
+                    product.getQuantity(),
+                    product.isAvailable() && !product.isDeleted(),
+                    fetchStartedAt,
+                    System.nanoTime()
+            ));
+        }
+    }
+
+    public void observeAll(Collection<ProductResponse> products, long fetchStartedAt) {
+        products.forEach(product -> observe(product, fetchStartedAt));
+    }
+
+    /**
+     * @param startedAt {@link System#nanoTime()} taken before the deduction was sent
+     */
+    public void deducted(List<StockDeductRequest> items, long startedAt) {
+        adjust(items, -1, known -> startedAt - known.receivedAt > 0);
+    }
+
+    public void restored(List<StockDeductRequest> items) {
+        long completedAt = System.nanoTime();
+        adjust(items, 1, known -> completedAt - known.fetchStartedAt >= 0);
+    }
+
+    /**
+     * Products that orders asked about since the previous call; their entries are worth
+     * refreshing before they expire.
+     */
+    public Set<UUID> drainRequested(int limit) {
+
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (Map.Entry<UUID, Availability> entry : availability.asMap().entrySet()) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            if (entry.getValue().requested) {
+                entry.getValue().requested = false;
+                ids.add(entry.getKey());
+            }
+        }
+        return ids;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void adjust(List<StockDeductRequest> items, int sign, Predicate<Availability> missingFromSnapshot) {
+        if (!enabled) {
+            return;
+        }
+        for (StockDeductRequest item : items) {
+            Availability known = availability.getIfPresent(item.getProductId());
+            if (known != null && missingFromSnapshot.test(known)) {
+                known.quantity.add((long) sign * item.getQuantity());
+            }
+        }
+    }
+
+    private static final class Availability {
+        final LongAdder quantity = new LongAdder();
+        final boolean orderable;
+        final long fetchStartedAt;
+        final long receivedAt;
+        volatile boolean requested;
+
+        Availability(long quantity, boolean orderable, long fetchStartedAt, long receivedAt) {
+            this.quantity.add(quantity);
+            this.orderable = orderable;
+            this.fetchStartedAt = fetchStartedAt;
+            this.receivedAt = receivedAt;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.order.client;
+
+import com.order.security.ServiceTokenProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Re-reads the products that orders are currently asking about, so their entries in
+ * {@link StockAdmissionGate} stay fresh while hot and a restock is noticed within one interval.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockAdmissionRefresher {
+
+    private final StockAdmissionGate gate;
+    private final ProductServiceClient productClient;
+    private final ServiceTokenProvider serviceTokenProvider;
+
+    @Value("${product.stock-admission.refresh-max-products:200}")
+    private int maxProducts;
+
+    @Scheduled(fixedDelayString = "${product.stock-admission.refresh-interval-ms:2000}")
+    public void refresh() {
+
+        if (!gate.isEnabled()) {
+            return;
+        }
+
+        Set<UUID> hot = gate.drainRequested(maxProducts);
+        if (hot.isEmpty()) {
+            return;
+        }
+
+        try {
+            productClient.refreshProducts(hot, serviceTokenProvider.getToken());
+        } catch (Exception ex) {
+            log.debug("Stock admission refresh of {} products failed: {}", hot.size(), ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.order.client;
+
+import com.order.dto.BatchStockDeductRequest;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.BatchStockDeductResponse;
+import com.order.exception.ProductServiceException;
+import com.order.exception.ProductServiceUnavailableException;
+import com.order.exception.StockUnavailableException;
+import com.order.security.ServiceTokenProvider;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces concurrent stock deductions into one {@code /deduct-stock/batch} call. The first
+ * queued deduction opens a window of {@code window}; the batch is sent when the window closes
+ * or {@code max-batch-size} deductions are collected, whichever is first, and every caller gets
+ * its own entry's result. A batch is sent with the service token and every entry carries the JWT
+ * of the user it deducts for, so the product service still authorizes each deduction as its
+ * user; a batch of one is sent as a plain deduction with the user's own token.
+ * <p>
+ * Each deduction has a caller-chosen reference, sent as its batch entry reference (or as the
+ * {@code Idempotency-Key} of a plain deduction). A deduction whose outcome is unknown (the call
+ * timed out, failed with a 5xx or came back without the entry) fails with an exception for which
+ * {@link #notApplied} is false; callers cover that case with a restore keyed by the same reference,
+ * see {@code OutboxService#armRestoreStock}.
+ * <p>
+ * The queue is bounded: when it is full, callers fail fast with
+ * {@link ProductServiceUnavailableException}. A deduction still queued after {@code max-wait}
+ * is withdrawn and fails the same way; once its batch is on the wire the caller waits for
+ * the outcome, so a deduction is never applied without its caller knowing.
+ */
+@Slf4j
+@Component
+public class StockDeductionBatcher {
+
+    private static final int QUEUED = 0;
+    private static final int SENT = 1;
+    private static final int WITHDRAWN = 2;
+
+    private final ProductServiceClient productClient;
+    private final ServiceTokenProvider serviceTokenProvider;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final BlockingQueue<Pending> queue;
+    private final DistributionSummary batchSizes;
+
+    private ExecutorService senders;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    public StockDeductionBatcher(
+            ProductServiceClient productClient,
+            ServiceTokenProvider serviceTokenProvider,
+            MeterRegistry meterRegistry,
+            @Value("${product.service.deduct-batching.enabled:false}") boolean enabled,
+            @Value("${product.service.deduct-batching.window:3ms}") Duration window,
+            @Value("${product.service.deduct-batching.max-batch-size:64}") int maxBatchSize,
+            @Value("${product.service.deduct-batching.queue-capacity:2000}") int queueCapacity,
+            @Value("${product.service.deduct-batching.max-wait:2s}") Duration maxWait,
+            @Value("${product.service.deduct-batching.max-concurrent-batches:4}") int maxConcurrentBatches
+    ) {
+        this.productClient = productClient;
+        this.serviceTokenProvider = serviceTokenProvider;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("product.stock.deduct.batch.size")
+                .description("Deductions per batched product service call")
+                .register(meterRegistry);
+        Gauge.builder("product.stock.deduct.queue", queue, BlockingQueue::size)
+                .description("Deductions waiting for a batch")
+                .register(meterRegistry);
+
+        if (enabled) {
+            // a full (or stopped) sender pool makes the dispatcher send the batch itself, so the
+            // queue backs up and new callers are rejected instead of piling up in memory
+            this.senders = new ThreadPoolExecutor(
+                    maxConcurrentBatches, maxConcurrentBatches, 0L, TimeUnit.MILLISECONDS,
+                    new SynchronousQueue<>(),
+                    new CustomizableThreadFactory("stock-deduct-batch-"),
+                    (task, executor) -> task.run()
+            );
+            this.running = true;
+            this.dispatcher = new Thread(this::dispatchLoop, "stock-deduct-dispatcher");
+            this.dispatcher.setDaemon(true);
+            this.dispatcher.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void deduct(List<StockDeductRequest> items, String jwtToken, UUID reference) {
+
+        if (!enabled) {
+            productClient.deductStock(items, jwtToken, reference);
+            return;
+        }
+
+        Pending pending = new Pending(reference, items, jwtToken);
+        if (!running || !queue.offer(pending)) {
+            throw new ProductServiceUnavailableException("Stock deduction queue is full", null);
+        }
+
+        try {
+            pending.result.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.state.compareAndSet(QUEUED, WITHDRAWN)) {
+                queue.remove(pending);
+                throw new ProductServiceUnavailableException("Stock deduction was not sent within " + maxWait, e);
+            }
+            // already sent: its outcome is bounded by the HTTP response timeout
+            join(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.state.compareAndSet(QUEUED, WITHDRAWN)) {
+                queue.remove(pending);
+                throw new ProductServiceException("Interrupted while waiting for stock deduction", e);
+            }
+            join(pending);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                List<Pending> claimed = batch.stream()
+                        .filter(p -> p.state.compareAndSet(QUEUED, SENT))
+                        .toList();
+                if (!claimed.isEmpty()) {
+                    senders.execute(() -> send(claimed));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Stock deduction dispatcher failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+
+        batchSizes.record(batch.size());
+
+        if (batch.size() == 1) {
+            Pending only = batch.get(0);
+            try {
+                productClient.deductStock(only.items, only.jwtToken, only.reference);
+                only.result.complete(null);
+            } catch (RuntimeException e) {
+                only.result.completeExceptionally(e);
+            }
+            return;
+        }
+
+        Map<String, BatchStockDeductResponse.Result> results;
+        try {
+            results = productClient.deductStockBatch(
+                    batch.stream()
+                            .map(p -> new BatchStockDeductRequest.Entry(p.reference.toString(), p.items, p.jwtToken))
+                            .toList(),
+                    serviceTokenProvider.getToken()
+            );
+        } catch (RuntimeException e) {
+            batch.forEach(p -> p.result.completeExceptionally(e));
+            return;
+        }
+
+        for (Pending p : batch) {
+            BatchStockDeductResponse.Result result = results.get(p.reference.toString());
+            if (result == null) {
+                p.result.completeExceptionally(new ProductServiceException(
+                        "No deduction result returned, outcome unknown: " + p.reference));
+            } else if (result.isDeducted()) {
+                p.result.complete(null);
+            } else {
+                p.result.completeExceptionally(new StockUnavailableException(
+                        result.getError() != null ? result.getError() : "Stock deduction rejected"));
+            }
+        }
+    }
+
+    /**
+     * Whether a deduction that failed with {@code failure} certainly left the stock untouched:
+     * it was never sent, or the product service rejected it. Any other failure (timeouts, 5xx,
+     * lost responses) may have been applied upstream.
+     */
+    public static boolean notApplied(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof ProductServiceUnavailableException
+                    || t instanceof StockUnavailableException
+                    || t instanceof HttpClientErrorException
+                    || t instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdown();
+
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending.state.compareAndSet(QUEUED, WITHDRAWN)) {
+                pending.result.completeExceptionally(
+                        new ProductServiceUnavailableException("Stock deduction batcher is shutting down", null));
+            }
+        }
+    }
+
+    private static void join(Pending pending) {
+        try {
+            pending.result.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException runtime
+                ? runtime
+                : new ProductServiceException("Stock deduction failed", cause);
+    }
+
+    private static final class Pending {
+        final UUID reference;
+        final List<StockDeductRequest> items;
+        final String jwtToken;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Pending(UUID reference, List<StockDeductRequest> items, String jwtToken) {
+            this.reference = reference;
+            this.items = items;
+            this.jwtToken = jwtToken;
+        }
+    }
+}
@@ -1,17 +1,155 @@
 package com.order.config;
 
+import com.order.client.ProductServiceResilience;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.ChannelOption;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class AppConfig {
 
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager productServiceConnectionManager(ProductServiceHttpConfig config) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxTotal())
+                .setMaxConnPerRoute(config.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(config.getResponseTimeout()))
+                        .setValidateAfterInactivity(TimeValue.of(config.getValidateAfterInactivity()))
+                        .setTimeToLive(TimeValue.of(config.getTimeToLive()))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient productServiceHttpClient(
+            PoolingHttpClientConnectionManager productServiceConnectionManager,
+            ProductServiceHttpConfig config
+    ) {
+        return HttpClients.custom()
+                .setConnectionManager(productServiceConnectionManager)
+                .setDefaultRequestConfig(productServiceRequestConfig(config))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(config.getIdleEvictAfter()))
+                .build();
+    }
+
+    @Bean
+    public MeterBinder productServicePoolMetrics(PoolingHttpClientConnectionManager productServiceConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(productServiceConnectionManager, "product-service");
+    }
+
+    /**
+     * Calls made through {@link ProductServiceResilience} carry their adaptive response
+     * timeout; everything else uses the client defaults.
+     */
+    @Bean
+    public RestTemplate restTemplate(
+            RestTemplateBuilder builder,
+            CloseableHttpClient productServiceHttpClient,
+            ProductServiceHttpConfig config
+    ) {
+        RequestConfig defaults = productServiceRequestConfig(config);
+
+        return builder
+                .requestFactory(() -> {
+                    HttpComponentsClientHttpRequestFactory factory =
+                            new HttpComponentsClientHttpRequestFactory(productServiceHttpClient);
+                    factory.setHttpContextFactory((method, uri) -> {
+                        Duration timeout = ProductServiceResilience.currentTimeout();
+                        if (timeout == null) {
+                            return null;
+                        }
+                        HttpClientContext context = HttpClientContext.create();
+                        context.setRequestConfig(RequestConfig.copy(defaults)
+                                .setResponseTimeout(Timeout.of(timeout))
+                                .build());
+                        return context;
+                    });
+                    return factory;
+                })
+                .build();
+    }
+
+    private static RequestConfig productServiceRequestConfig(ProductServiceHttpConfig config) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(config.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(config.getResponseTimeout()))
+                .setConnectionKeepAlive(TimeValue.of(config.getKeepAlive()))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
-        factory.setConnectTimeout(3000);
-        return new RestTemplate(factory);
+    public WebClient productServiceWebClient(
+            WebClient.Builder builder,
+            ProductServiceHttpConfig config,
+            @Value("${product.service.url}") String productServiceUrl
+    ) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("product-service")
+                .maxConnections(config.getMaxTotal())
+                .pendingAcquireTimeout(config.getConnectionRequestTimeout())
+                .maxIdleTime(config.getIdleEvictAfter())
+                .maxLifeTime(config.getTimeToLive())
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) config.getConnectTimeout().toMillis())
+                .responseTimeout(config.getResponseTimeout());
+
+        return builder
+                .baseUrl(productServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler orderPersistenceScheduler(
+            @Value("${order.reactive.persistence-threads:10}") int threads,
+            @Value("${order.reactive.persistence-queue-size:10000}") int queueSize
+    ) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "order-persistence");
+    }
+
+    /**
+     * One virtual thread per product lookup. Concurrency is bounded per call by
+     * {@code product.service.lookup-parallelism} and overall by the HTTP connection pool, so
+     * concurrent orders never queue behind each other here.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService productLookupExecutor() {
+        // carries the current observation into the lookups, so their HTTP spans join the order trace
+        return ContextExecutorService.wrap(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("product-lookup-", 0).factory()),
+                ContextSnapshotFactory.builder().build()::captureAll
+        );
     }
 }
@@ -1,30 +1,26 @@
 package com.order.config;
 
-import io.jsonwebtoken.Claims;
+import com.order.security.JwtTokenVerifier;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.security.Key;
-import java.util.List;
 
+@Slf4j
 @Component
+@RequiredArgsConstructor
 public class AuthTokenFilter extends OncePerRequestFilter {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final JwtTokenVerifier tokenVerifier;
 
     @Override
     protected void doFilterInternal(
@@ -42,39 +38,22 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             String jwt = authHeader.substring(7);
 
             try {
-                Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+                UsernamePasswordAuthenticationToken authentication = tokenVerifier.verify(jwt);
 
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(key)
-                        .build()
-                        .parseClaimsJws(jwt)
-                        .getBody();
-
-                String username = claims.getSubject();
-                String role = claims.get("role", String.class);
-
-                // Logging (Fix 2)
-                System.out.println("Authenticated user = " + username);
-                System.out.println("Role from JWT = " + role);
-
-                if (username != null) {
-                    String authority = "ROLE_" + (role != null ? role : "USER");
-
-                    List<GrantedAuthority> authorities =
-                            List.of(new SimpleGrantedAuthority(authority));
-
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    username,
-                                    null,
-                                    authorities
-                            );
+                if (authentication != null) {
+                    log.atDebug()
+                            .addKeyValue("user", authentication.getName())
+                            .addKeyValue("authorities", authentication.getAuthorities())
+                            .log("Authenticated request");
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
 
             } catch (JwtException e) {
-                System.out.println("JWT validation failed: " + e.getMessage());
+                log.atWarn()
+                        .addKeyValue("uri", request.getRequestURI())
+                        .addKeyValue("reason", e.getMessage())
+                        .log("JWT validation failed");
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT");
                 return;
             }
@@ -83,4 +62,3 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 }
-
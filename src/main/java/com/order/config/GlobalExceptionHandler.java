@@ -1,7 +1,10 @@
 package com.order.config;
 
+import com.order.exception.BadRequestException;
+import com.order.exception.IdempotencyConflictException;
 import com.order.exception.OrderProcessingException;
 import com.order.exception.ProductServiceException;
+import com.order.exception.ProductServiceUnavailableException;
 import com.order.exception.StockUnavailableException;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +24,12 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(ProductServiceUnavailableException.class)
+    public ResponseEntity<?> handleProductServiceUnavailableException(ProductServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(ProductServiceException.class)
     public ResponseEntity<?> handleProductServiceException(ProductServiceException ex) {
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
@@ -33,6 +42,18 @@ public class GlobalExceptionHandler {
                 .body(Map.of("error", ex.getMessage()));
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<?> handleBadRequestException(BadRequestException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<?> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(OrderProcessingException.class)
     public ResponseEntity<?> handleOrderException(OrderProcessingException ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -12,4 +12,6 @@ import org.springframework.stereotype.Component;
 public class JWTConfig {
     private String secret;
     private long expiration;
+    private String serviceSubject = "order-management-service";
+    private String serviceRole = "SERVICE";
 }
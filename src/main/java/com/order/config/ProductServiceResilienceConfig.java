@@ -0,0 +1,24 @@
+package com.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "product.service.resilience")
+@Getter
+@Setter
+public class ProductServiceResilienceConfig {
+    private int latencyWindowSize = 512;
+    private int minLatencySamples = 50;
+    private double timeoutPercentile = 0.99;
+    private double timeoutMultiplier = 2.0;
+    private Duration minTimeout = Duration.ofMillis(500);
+    private Duration maxTimeout = Duration.ofSeconds(5);
+    private boolean hedgeEnabled = true;
+    private double hedgePercentile = 0.95;
+    private Duration minHedgeDelay = Duration.ofMillis(50);
+}
@@ -0,0 +1,38 @@
+package com.order.controller;
+
+import com.order.discount.DiscountEngine;
+import com.order.discount.DiscountRule;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/discounts")
+@RequiredArgsConstructor
+public class DiscountAdminController {
+
+    private final DiscountEngine discountEngine;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<List<DiscountRule>> getRules() {
+        return ResponseEntity.ok(discountEngine.plan().rules());
+    }
+
+    @PutMapping
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<List<DiscountRule>> replaceRules(@RequestBody List<DiscountRule> rules) {
+        discountEngine.replace(rules);
+        return ResponseEntity.ok(discountEngine.plan().rules());
+    }
+
+    @PostMapping("/reload")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<List<DiscountRule>> reload() {
+        discountEngine.reload();
+        return ResponseEntity.ok(discountEngine.plan().rules());
+    }
+}
@@ -1,14 +1,33 @@
 package com.order.controller;
 
 import com.order.dto.*;
+import com.order.dto.response.BulkOrderResponse;
+import com.order.dto.response.CursorPagedResponse;
 import com.order.dto.response.OrderResponse;
 import com.order.dto.response.PagedResponse;
+import com.order.dto.response.UserOrderSummaryResponse;
+import com.order.service.BulkOrderService;
+import com.order.service.IdempotencyService;
+import com.order.service.OrderExportService;
 import com.order.service.OrderService;
+import com.order.service.ReactiveOrderService;
+import com.order.service.UserOrderSummaryService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -16,18 +35,37 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final ReactiveOrderService reactiveOrderService;
+    private final OrderExportService orderExportService;
+    private final BulkOrderService bulkOrderService;
+    private final IdempotencyService idempotencyService;
+    private final UserOrderSummaryService summaryService;
+
+    @Value("${order.export.request-timeout:30m}")
+    private Duration exportTimeout;
 
     @PreAuthorize("hasRole('USER')")
     @PostMapping
     public ResponseEntity<OrderResponse> placeOrder(
             Authentication authentication,
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody OrderRequest request
     ) {
         String token = authHeader.substring(7);
         String username = authentication.getName();
         String role = authentication.getAuthorities().iterator().next().getAuthority();
 
+        if (idempotencyKey != null) {
+            return ResponseEntity.ok(idempotencyService.execute(
+                    username,
+                    idempotencyKey,
+                    request,
+                    OrderResponse.class,
+                    () -> orderService.placeOrder(username, role, token, request)
+            ));
+        }
+
         return ResponseEntity.ok(orderService.placeOrder(
                 username,
                 role,
@@ -36,6 +74,46 @@ public class OrderController {
         ));
     }
 
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkOrderResponse> placeOrders(
+            Authentication authentication,
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody List<OrderRequest> requests
+    ) {
+        String token = authHeader.substring(7);
+        String username = authentication.getName();
+        String role = authentication.getAuthorities().iterator().next().getAuthority();
+
+        if (idempotencyKey != null) {
+            return ResponseEntity.ok(idempotencyService.execute(
+                    username,
+                    idempotencyKey,
+                    requests,
+                    BulkOrderResponse.class,
+                    () -> bulkOrderService.placeOrders(username, role, token, requests)
+            ));
+        }
+
+        return ResponseEntity.ok(bulkOrderService.placeOrders(username, role, token, requests));
+    }
+
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/async")
+    public Mono<ResponseEntity<OrderResponse>> placeOrderAsync(
+            Authentication authentication,
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody OrderRequest request
+    ) {
+        String token = authHeader.substring(7);
+        String username = authentication.getName();
+        String role = authentication.getAuthorities().iterator().next().getAuthority();
+
+        return reactiveOrderService.placeOrder(username, role, token, request)
+                .map(ResponseEntity::ok);
+    }
+
     @GetMapping("/page")
     @PreAuthorize("hasAnyRole('ADMIN')")
     public ResponseEntity<PagedResponse<OrderResponse>> getPagedOrders(
@@ -43,9 +121,70 @@ public class OrderController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            Authentication authentication
+    ) {
+        String username = authentication.getName();
+        return ResponseEntity.ok(orderService.getAllOrders(username, page, size, sortBy, sortDir, includeTotal));
+    }
+
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<CursorPagedResponse<OrderResponse>> getOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
             Authentication authentication
     ) {
         String username = authentication.getName();
-        return ResponseEntity.ok(orderService.getAllOrders(username, page, size, sortBy, sortDir));
+        return ResponseEntity.ok(orderService.getOrdersByCursor(username, cursor, size));
+    }
+
+    @GetMapping("/summary")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<UserOrderSummaryResponse> getMySummary(Authentication authentication) {
+        return ResponseEntity.ok(summaryService.getSummary(authentication.getName()));
+    }
+
+    @GetMapping("/summary/{username}")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<UserOrderSummaryResponse> getUserSummary(@PathVariable String username) {
+        return ResponseEntity.ok(summaryService.getSummary(username));
+    }
+
+    @PostMapping("/summary/rebuild")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> rebuildSummaries() {
+        return summaryService.rebuild()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * Streams the export on an MVC async thread. Only this response gets the long
+     * {@code order.export.request-timeout}; every other async request keeps the default one.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public WebAsyncTask<Void> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String username,
+            HttpServletResponse response
+    ) {
+        OrderExportService.Format exportFormat = "csv".equalsIgnoreCase(format)
+                ? OrderExportService.Format.CSV
+                : OrderExportService.Format.NDJSON;
+
+        MediaType contentType = exportFormat == OrderExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=orders." + exportFormat.name().toLowerCase());
+
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            orderExportService.export(username, exportFormat, response.getOutputStream());
+            return null;
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.order.controller;
+
+import com.order.client.ProductCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/product-cache")
+@RequiredArgsConstructor
+public class ProductCacheController {
+
+    private final ProductCache productCache;
+
+    @DeleteMapping("/{productId}")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> invalidate(@PathVariable UUID productId) {
+        productCache.invalidate(productId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<Void> invalidateAll() {
+        productCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+}
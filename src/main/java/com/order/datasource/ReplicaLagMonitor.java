@@ -0,0 +1,78 @@
+package com.order.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Periodically measures how far the replica's replay lags behind the primary. Until the first
+ * successful check, and whenever the lag exceeds {@code app.datasource.replica.max-lag} or the
+ * replica cannot be reached, read-only transactions fall back to the primary.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // An idle primary produces no WAL, so a caught-up replica reports zero lag rather than the
+    // time since the last replayed transaction.
+    private static final String LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+
+    private volatile boolean usable;
+    private volatile long lagMs = -1;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, ReadReplicaProperties properties, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout((int) Math.max(1, properties.getLagCheckTimeout().toSeconds()));
+        this.maxLag = properties.getMaxLag();
+
+        Gauge.builder("datasource.replica.lag", this, m -> m.lagMs)
+                .description("Replica replay lag in milliseconds, -1 when unreachable")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, m -> m.usable ? 1 : 0)
+                .description("Whether read-only transactions are routed to the replica")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void check() {
+
+        boolean nowUsable;
+        try {
+            Double lag = replica.queryForObject(LAG_SQL, Double.class);
+            lagMs = lag != null ? lag.longValue() : 0;
+            nowUsable = lagMs <= maxLag.toMillis();
+        } catch (Exception ex) {
+            lagMs = -1;
+            nowUsable = false;
+            log.debug("Replica lag check failed: {}", ex.getMessage());
+        }
+
+        if (nowUsable != usable) {
+            usable = nowUsable;
+            if (nowUsable) {
+                log.info("Replica caught up (lag {} ms), routing read-only transactions to it", lagMs);
+            } else {
+                log.warn("Replica unavailable or lagging (lag {} ms, max {} ms), routing reads to primary",
+                        lagMs, maxLag.toMillis());
+            }
+        }
+    }
+}
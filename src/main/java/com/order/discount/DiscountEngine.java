@@ -0,0 +1,64 @@
+package com.order.discount;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link DiscountPlan}. Rules are read from {@code discount.rules-location}
+ * (a JSON array of {@link DiscountRule}s) at startup and on {@link #reload()}, or replaced
+ * directly through {@link #replace}. A new plan is compiled off to the side and swapped in
+ * atomically, so pricing never sees a half-built plan; invalid rules leave the current plan
+ * in place.
+ */
+@Slf4j
+@Component
+public class DiscountEngine {
+
+    private final Resource rulesLocation;
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<DiscountPlan> plan = new AtomicReference<>();
+
+    public DiscountEngine(
+            @Value("${discount.rules-location:classpath:discount-rules.json}") Resource rulesLocation,
+            ObjectMapper objectMapper
+    ) {
+        this.rulesLocation = rulesLocation;
+        this.objectMapper = objectMapper;
+        reload();
+    }
+
+    public DiscountPlan plan() {
+        return plan.get();
+    }
+
+    public int reload() {
+        List<DiscountRule> rules;
+        try (InputStream in = rulesLocation.getInputStream()) {
+            rules = objectMapper.readValue(in, new TypeReference<List<DiscountRule>>() {});
+        } catch (IOException e) {
+            if (plan.get() == null) {
+                throw new UncheckedIOException("Could not read discount rules from " + rulesLocation, e);
+            }
+            throw new BadRequestException("Could not read discount rules: " + e.getMessage());
+        }
+        return replace(rules);
+    }
+
+    public int replace(List<DiscountRule> rules) {
+        DiscountPlan compiled = DiscountPlan.compile(rules);
+        plan.set(compiled);
+        log.atInfo().addKeyValue("rules", rules.size()).log("Discount plan swapped");
+        return rules.size();
+    }
+}
@@ -0,0 +1,199 @@
+package com.order.discount;
+
+import com.order.entities.OrderItem;
+import com.order.exception.BadRequestException;
+import com.order.money.Money;
+
+import java.util.*;
+
+/**
+ * Immutable, precompiled form of a set of {@link DiscountRule}s. Order rules are grouped per
+ * role and product rules per product id ahead of time, so evaluating an order is a couple
+ * of map lookups and array scans, with no allocation.
+ */
+public final class DiscountPlan {
+
+    private static final OrderRule[] NO_ORDER_RULES = new OrderRule[0];
+    private static final ProductRule[] NO_PRODUCT_RULES = new ProductRule[0];
+
+    // amounts in minor units, factors in parts per million (see Money)
+    private record OrderRule(long minAmount, long factor, long from, long until) {
+    }
+
+    private record ProductRule(String role, long factor, long from, long until) {
+    }
+
+    private final List<DiscountRule> rules;
+    private final Map<String, OrderRule[]> orderRulesByRole;
+    private final OrderRule[] orderRulesAnyRole;
+    private final Map<UUID, ProductRule[]> productRules;
+
+    private DiscountPlan(
+            List<DiscountRule> rules,
+            Map<String, OrderRule[]> orderRulesByRole,
+            OrderRule[] orderRulesAnyRole,
+            Map<UUID, ProductRule[]> productRules
+    ) {
+        this.rules = rules;
+        this.orderRulesByRole = orderRulesByRole;
+        this.orderRulesAnyRole = orderRulesAnyRole;
+        this.productRules = productRules;
+    }
+
+    /**
+     * Validates and compiles the rules.
+     *
+     * @throws BadRequestException if a rule is invalid
+     */
+    public static DiscountPlan compile(List<DiscountRule> rules) {
+
+        rules.forEach(DiscountPlan::validate);
+
+        List<DiscountRule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparingInt(DiscountRule::getPriority));
+
+        // promotions that have already ended are kept for display but never evaluated
+        long now = System.currentTimeMillis();
+        List<DiscountRule> live = sorted.stream()
+                .filter(r -> until(r) > now)
+                .toList();
+
+        Set<String> roles = new HashSet<>();
+        live.forEach(r -> {
+            if (r.getRole() != null) {
+                roles.add(authority(r.getRole()));
+            }
+        });
+
+        Map<String, OrderRule[]> byRole = new HashMap<>();
+        for (String role : roles) {
+            byRole.put(role, orderRules(live, role));
+        }
+
+        Map<UUID, List<ProductRule>> byProduct = new HashMap<>();
+        for (DiscountRule r : live) {
+            if (r.getProductId() != null) {
+                byProduct.computeIfAbsent(r.getProductId(), id -> new ArrayList<>())
+                        .add(new ProductRule(authority(r.getRole()), factor(r), from(r), until(r)));
+            }
+        }
+
+        Map<UUID, ProductRule[]> productRules = new HashMap<>();
+        byProduct.forEach((id, list) -> productRules.put(id, list.toArray(NO_PRODUCT_RULES)));
+
+        return new DiscountPlan(List.copyOf(sorted), byRole, orderRules(live, null), productRules);
+    }
+
+    /**
+     * Discounts the items in place, setting each item's {@code discountApplied} to its share
+     * of all applicable discounts, and returns the discounted order total. Item
+     * {@code totalPrice}s must hold the undiscounted line totals. All amounts are minor
+     * units; the order-level discount is split across the lines so that the line totals
+     * minus their discounts add up to the returned total exactly. {@code role} is the caller's
+     * granted authority ({@code ROLE_PREMIUM_USER}); rules may name the role with or without
+     * the {@code ROLE_} prefix.
+     */
+    public long apply(String role, List<OrderItem> items, long nowMillis) {
+
+        long subtotal = 0;
+
+        for (int i = 0, n = items.size(); i < n; i++) {
+            OrderItem item = items.get(i);
+            long net = item.getTotalPrice();
+
+            ProductRule[] rules = productRules.getOrDefault(item.getProductId(), NO_PRODUCT_RULES);
+            for (ProductRule rule : rules) {
+                if (active(rule.from(), rule.until(), nowMillis) && (rule.role() == null || rule.role().equals(role))) {
+                    net = Money.applyFactor(net, rule.factor());
+                }
+            }
+
+            // holds the net line total until the order-level discount is known
+            item.setDiscountApplied(net);
+            subtotal += net;
+        }
+
+        long total = subtotal;
+        OrderRule[] rules = role != null ? orderRulesByRole.getOrDefault(role, orderRulesAnyRole) : orderRulesAnyRole;
+        for (OrderRule rule : rules) {
+            if (active(rule.from(), rule.until(), nowMillis) && total > rule.minAmount()) {
+                total = Money.applyFactor(total, rule.factor());
+            }
+        }
+
+        long orderDiscount = subtotal - total;
+        double ratio = subtotal > 0 ? (double) orderDiscount / subtotal : 0;
+        long allocated = 0;
+        int largest = -1;
+        long largestNet = -1;
+
+        for (int i = 0, n = items.size(); i < n; i++) {
+            OrderItem item = items.get(i);
+            long net = item.getDiscountApplied();
+            long share = Money.share(net, ratio);
+            allocated += share;
+            item.setDiscountApplied(item.getTotalPrice() - net + share);
+            if (net > largestNet) {
+                largest = i;
+                largestNet = net;
+            }
+        }
+
+        // the cents lost to rounding go to the largest line
+        if (largest >= 0 && allocated != orderDiscount) {
+            OrderItem item = items.get(largest);
+            item.setDiscountApplied(item.getDiscountApplied() + orderDiscount - allocated);
+        }
+
+        return total;
+    }
+
+    public List<DiscountRule> rules() {
+        return rules;
+    }
+
+    private static OrderRule[] orderRules(List<DiscountRule> live, String role) {
+        return live.stream()
+                .filter(r -> r.getProductId() == null)
+                .filter(r -> r.getRole() == null || authority(r.getRole()).equals(role))
+                .map(r -> new OrderRule(
+                        r.getMinAmount() != null ? Money.toMinor(r.getMinAmount()) : Long.MIN_VALUE,
+                        factor(r),
+                        from(r),
+                        until(r)))
+                .toArray(OrderRule[]::new);
+    }
+
+    private static String authority(String role) {
+        return role == null || role.startsWith("ROLE_") ? role : "ROLE_" + role;
+    }
+
+    private static boolean active(long from, long until, long now) {
+        return now >= from && now < until;
+    }
+
+    private static long factor(DiscountRule r) {
+        return Money.discountFactor(r.getPercent());
+    }
+
+    private static long from(DiscountRule r) {
+        return r.getStartsAt() != null ? r.getStartsAt().toEpochMilli() : Long.MIN_VALUE;
+    }
+
+    private static long until(DiscountRule r) {
+        return r.getEndsAt() != null ? r.getEndsAt().toEpochMilli() : Long.MAX_VALUE;
+    }
+
+    private static void validate(DiscountRule r) {
+        String name = r.getId() != null ? r.getId() : "<unnamed>";
+        if (!(r.getPercent() > 0 && r.getPercent() <= 100)) {
+            throw new BadRequestException("Discount rule " + name + ": percent must be in (0, 100]");
+        }
+        if (r.getProductId() != null && r.getMinAmount() != null) {
+            throw new BadRequestException("Discount rule " + name + ": product rules cannot have a minAmount");
+        }
+        if (r.getStartsAt() != null && r.getEndsAt() != null && !r.getStartsAt().isBefore(r.getEndsAt())) {
+            throw new BadRequestException("Discount rule " + name + ": startsAt must be before endsAt");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.order.discount;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One configurable discount. Rules with a {@code productId} discount that product's lines;
+ * all others discount the order and may be limited to a {@code role} and to orders whose
+ * running total exceeds {@code minAmount}. {@code startsAt}/{@code endsAt} turn any rule into
+ * a time-window promotion. Applicable rules stack multiplicatively in {@code priority} order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscountRule {
+
+    private String id;
+    private String role;
+    private BigDecimal minAmount;
+    private UUID productId;
+    private double percent;
+    private Instant startsAt;
+    private Instant endsAt;
+    private int priority;
+}
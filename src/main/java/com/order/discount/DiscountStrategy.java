@@ -1,5 +0,0 @@
-package com.order.discount;
-
-public interface DiscountStrategy {
-    double applyDiscount(double amount);
-}
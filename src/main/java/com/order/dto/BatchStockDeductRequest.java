@@ -0,0 +1,33 @@
+package com.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockDeductRequest {
+
+    private List<Entry> deductions;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String reference;
+        private List<StockDeductRequest> items;
+
+        /**
+         * JWT of the user the deduction is for, when the batch is sent with another identity;
+         * the product service authorizes the entry against it.
+         */
+        private String userToken;
+
+        public Entry(String reference, List<StockDeductRequest> items) {
+            this(reference, items, null);
+        }
+    }
+}
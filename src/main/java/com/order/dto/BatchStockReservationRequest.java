@@ -0,0 +1,24 @@
+package com.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockReservationRequest {
+
+    private List<Entry> reservations;
+    private long ttlSeconds;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String reference;
+        private List<StockCheckRequest> items;
+    }
+}
@@ -0,0 +1,25 @@
+package com.order.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockReservationResponse {
+
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String reference;
+        private boolean reserved;
+        private String error;
+        private StockReservationResponse reservation;
+    }
+}
@@ -0,0 +1,40 @@
+package com.order.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResponse {
+
+    private int succeeded;
+    private int failed;
+    private List<Result> results;
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private int index;
+        private Status status;
+        private OrderResponse order;
+        private String error;
+
+        public static Result created(int index, OrderResponse order) {
+            return new Result(index, Status.CREATED, order, null);
+        }
+
+        public static Result failed(int index, String error) {
+            return new Result(index, Status.FAILED, null, error);
+        }
+    }
+}
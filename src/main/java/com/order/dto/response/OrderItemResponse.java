@@ -1,13 +1,14 @@
 package com.order.dto.response;
 
 import lombok.Data;
+import java.math.BigDecimal;
 import java.util.UUID;
 
 @Data
 public class OrderItemResponse {
     private UUID productId;
     private int quantity;
-    private double unitPrice;
-    private double discountApplied;
-    private double totalPrice;
+    private BigDecimal unitPrice;
+    private BigDecimal discountApplied;
+    private BigDecimal totalPrice;
 }
@@ -1,7 +1,8 @@
 package com.order.dto.response;
 
 import lombok.Data;
-import java.time.LocalDateTime;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -10,7 +11,9 @@ public class OrderResponse {
 
     private UUID orderId;
     private String username;
-    private double orderTotal;
+    private String status;
+    private BigDecimal orderTotal;
+    private Instant createdAt;
     private List<OrderItemResponse> items;
 }
 
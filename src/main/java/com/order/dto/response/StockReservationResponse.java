@@ -0,0 +1,28 @@
+package com.order.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationResponse {
+
+    private UUID reservationId;
+    private String expiresAt;
+    private List<ReservedItem> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReservedItem {
+        private UUID productId;
+        private int quantity;
+        private BigDecimal unitPrice;
+    }
+}
@@ -0,0 +1,31 @@
+package com.order.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderSummaryResponse {
+
+    private String username;
+    private long orderCount;
+    private BigDecimal totalSpent;
+    private Instant lastOrderAt;
+    private List<ProductTotal> topProducts;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductTotal {
+        private UUID productId;
+        private long quantity;
+        private long orderCount;
+    }
+}
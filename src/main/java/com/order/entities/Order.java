@@ -1,9 +1,12 @@
 package com.order.entities;
 
+import com.order.entities.converter.MoneyConverter;
+import com.order.entities.id.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,14 +18,42 @@ import java.util.UUID;
 @Table(name = "orders")
 public class Order {
 
+    public enum Status {
+        PLACED,
+        /** The stock reservation backing the order expired before it could be confirmed. */
+        FAILED
+    }
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @UuidV7
     private UUID id;
 
     private String username;
 
-    private double orderTotal;
+    /** In minor units (cents). */
+    @Convert(converter = MoneyConverter.class)
+    private long orderTotal;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Status status = Status.PLACED;
+
+    /** Partition key of both {@code orders} and {@code order_items}. */
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
     private List<OrderItem> items;
+
+    // Items are inserted with a copy of the order's partition key, so it must be known before
+    // the insert rather than generated by it.
+    @PrePersist
+    void assignCreatedAt() {
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
+        if (items != null) {
+            items.forEach(item -> item.setOrderCreatedAt(createdAt));
+        }
+    }
 }
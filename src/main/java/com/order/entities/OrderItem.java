@@ -1,7 +1,11 @@
 package com.order.entities;
 
+import com.order.entities.converter.MoneyConverter;
+import com.order.entities.id.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
+
+import java.time.Instant;
 import java.util.UUID;
 
 @Entity
@@ -13,17 +17,26 @@ import java.util.UUID;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @UuidV7
     private UUID id;
 
     private UUID productId;
     private int quantity;
-    private double unitPrice;
+    // amounts in minor units (cents); totalPrice is before discounts
+    @Convert(converter = MoneyConverter.class)
+    private long unitPrice;
+
+    @Convert(converter = MoneyConverter.class)
+    private long discountApplied;
 
-    private double discountApplied;
-    private double totalPrice;
+    @Convert(converter = MoneyConverter.class)
+    private long totalPrice;
 
     @ManyToOne
     @JoinColumn(name = "order_id")
     private Order order;
+
+    /** Copy of {@link Order#getCreatedAt()}; set when the order is persisted. */
+    @Column(nullable = false, updatable = false)
+    private Instant orderCreatedAt;
 }
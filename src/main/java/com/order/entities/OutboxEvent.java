@@ -0,0 +1,58 @@
+package com.order.entities;
+
+import com.order.entities.id.UuidV7;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    public enum Type {
+        RESTORE_STOCK,
+        CONFIRM_RESERVATION,
+        RELEASE_RESERVATION
+    }
+
+    public enum Status {
+        PENDING,
+        PROCESSED,
+        FAILED
+    }
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    private UUID aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    private Type eventType;
+
+    private String payload;
+
+    private UUID idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    @Builder.Default
+    private Instant nextAttemptAt = Instant.now();
+
+    /** When set, the event is given up once this passes instead of being retried. */
+    private Instant deadline;
+
+    private String lastError;
+
+    private Instant processedAt;
+}
@@ -0,0 +1,24 @@
+package com.order.entities.converter;
+
+import com.order.money.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps amounts held as {@code long} minor units to {@code DECIMAL(10, 2)} columns.
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long minor) {
+        return minor != null ? Money.toDecimal(minor) : null;
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal amount) {
+        return amount != null ? Money.toMinor(amount) : null;
+    }
+}
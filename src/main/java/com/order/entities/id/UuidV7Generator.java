@@ -0,0 +1,54 @@
+package com.order.entities.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hibernate.generator.EventTypeSets.INSERT_ONLY;
+
+/**
+ * Generates RFC 9562 version 7 UUIDs: a 48-bit Unix millisecond timestamp, then a 12-bit
+ * counter that keeps ids from the same millisecond increasing, then 62 random bits.
+ * New keys land at the right edge of the primary key index instead of at random pages.
+ * The random bits only need to keep ids unique, not unguessable, so they come from
+ * {@link ThreadLocalRandom} rather than a shared, synchronized {@code SecureRandom}.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    // unix millis << 12 | counter
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+
+        long now = System.currentTimeMillis() << 12;
+        long state = LAST.updateAndGet(prev -> Math.max(now, prev + 1));
+
+        long msb = (state >>> 12) << 16
+                | 0x7000L
+                | (state & 0xFFFL);
+
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        return new UUID(msb, lsb);
+    }
+
+    @Override
+    public Object generate(
+            SharedSessionContractImplementor session,
+            Object owner,
+            Object currentValue,
+            EventType eventType
+    ) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return INSERT_ONLY;
+    }
+}
@@ -0,0 +1,11 @@
+package com.order.exception;
+
+/**
+ * The product service call was not attempted because its circuit breaker is open or the
+ * bulkhead is full.
+ */
+public class ProductServiceUnavailableException extends ProductServiceException {
+    public ProductServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
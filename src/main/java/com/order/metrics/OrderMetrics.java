@@ -0,0 +1,116 @@
+package com.order.metrics;
+
+import com.order.money.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters for the order placement pipeline. The whole placement and each of its stages run
+ * inside an {@link Observation}, so they show up both as timers ({@code order.placement},
+ * {@code order.placement.stage}, tagged by {@code stage}) and as spans that parent the
+ * product service HTTP calls made inside them. Percentile histograms for the
+ * {@code order.*} meters are switched on under {@code management.metrics.distribution}.
+ */
+@Component
+public class OrderMetrics {
+
+    public static final String FLOW_BLOCKING = "blocking";
+    public static final String FLOW_RESERVED = "reserved";
+    public static final String FLOW_REACTIVE = "reactive";
+
+    public static final String STAGE_VALIDATE_STOCK = "validate-stock";
+    public static final String STAGE_PRODUCT_FETCH = "product-fetch";
+    public static final String STAGE_PRICING = "pricing";
+    public static final String STAGE_RESERVE_STOCK = "reserve-stock";
+    public static final String STAGE_DEDUCT_STOCK = "deduct-stock";
+    public static final String STAGE_SAVE = "save";
+    public static final String STAGE_CONFIRM_RESERVATION = "confirm-reservation";
+    public static final String STAGE_COMPENSATION = "compensation";
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+
+    private final Timer discountTimer;
+    private final Timer productFetchItemTimer;
+    private final DistributionSummary itemsPerOrder;
+    private final DistributionSummary orderTotal;
+
+    public OrderMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+
+        this.discountTimer = Timer.builder("order.discount")
+                .description("Time to compute the discounted order total")
+                .register(meterRegistry);
+        this.productFetchItemTimer = Timer.builder("order.product.fetch.item")
+                .description("Time to fetch a single product from the product service")
+                .register(meterRegistry);
+        this.itemsPerOrder = DistributionSummary.builder("order.items")
+                .description("Line items per placed order")
+                .register(meterRegistry);
+        this.orderTotal = DistributionSummary.builder("order.total")
+                .description("Total of placed orders after discounts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a whole placement, counting its outcome and exception type.
+     */
+    public <T> T placement(String flow, Supplier<T> placement) {
+        try {
+            T result = Observation.createNotStarted("order.placement", observationRegistry)
+                    .contextualName("order placement")
+                    .lowCardinalityKeyValue("flow", flow)
+                    .observe(placement);
+            recordOutcome(flow, null);
+            return result;
+        } catch (RuntimeException ex) {
+            recordOutcome(flow, ex);
+            throw ex;
+        }
+    }
+
+    public <T> T stage(String stage, Supplier<T> body) {
+        return Observation.createNotStarted("order.placement.stage", observationRegistry)
+                .contextualName("order " + stage)
+                .lowCardinalityKeyValue("stage", stage)
+                .observe(body);
+    }
+
+    public void stage(String stage, Runnable body) {
+        stage(stage, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    public <T> T productFetchItem(Supplier<T> fetch) {
+        return productFetchItemTimer.record(fetch);
+    }
+
+    public Timer discountTimer() {
+        return discountTimer;
+    }
+
+    public void recordOrder(int items, long totalMinor) {
+        itemsPerOrder.record(items);
+        orderTotal.record(Money.toDouble(totalMinor));
+    }
+
+    public void recordOutcome(String flow, Throwable error) {
+        Counter.builder("order.placement.outcomes")
+                .description("Order placements by outcome and exception type")
+                .tag("flow", flow)
+                .tag("outcome", error == null ? "success" : "failure")
+                .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
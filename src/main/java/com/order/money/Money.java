@@ -0,0 +1,61 @@
+package com.order.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact money arithmetic on {@code long} minor units (cents), matching the
+ * {@code DECIMAL(10, 2)} columns. Amounts are never negative in the pricing pipeline, so
+ * rounding is plain half-up integer division. {@link BigDecimal} only appears at the edges:
+ * JSON, JDBC and configuration.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    /** Discount factors are kept in parts per million, so percentages like 7.5 stay exact. */
+    public static final long FACTOR_ONE = 1_000_000L;
+
+    private Money() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static double toDouble(long minor) {
+        return minor / 100.0;
+    }
+
+    public static long times(long minor, int quantity) {
+        return Math.multiplyExact(minor, (long) quantity);
+    }
+
+    /**
+     * The factor that takes {@code percentOff} percent off an amount, in parts per million.
+     */
+    public static long discountFactor(double percentOff) {
+        return Math.round((100 - percentOff) * (FACTOR_ONE / 100));
+    }
+
+    public static long applyFactor(long minor, long factor) {
+        return divideRounded(Math.multiplyExact(minor, factor), FACTOR_ONE);
+    }
+
+    /**
+     * {@code amount * ratio}, rounded toward zero. Used to split an amount proportionally;
+     * the ratio is only an allocation key, and callers assign the rounding remainder to one
+     * part so that the parts still add up to the amount exactly.
+     */
+    public static long share(long amount, double ratio) {
+        return (long) (amount * ratio);
+    }
+
+    private static long divideRounded(long value, long divisor) {
+        return (value + divisor / 2) / divisor;
+    }
+}
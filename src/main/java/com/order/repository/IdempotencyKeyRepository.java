@@ -0,0 +1,96 @@
+package com.order.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Rows of {@code idempotency_keys}, keyed by {@code (username, idempotency_key)}. A row is
+ * claimed as {@code IN_PROGRESS} by the request that gets there first, under a claim token.
+ * It becomes {@code COMMITTED} in the transaction that commits the request's effects, and
+ * {@code COMPLETED} with the serialized response once the request succeeds.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    public enum Status {
+        IN_PROGRESS,
+        COMMITTED,
+        COMPLETED
+    }
+
+    public record Entry(String requestHash, Status status, String responseBody) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts an {@code IN_PROGRESS} row, or takes over one that has expired.
+     *
+     * @return true if the caller now owns the key
+     */
+    public boolean claim(String username, String key, String requestHash, UUID claimToken, Instant expiresAt) {
+        return jdbcTemplate.update("""
+                INSERT INTO idempotency_keys (username, idempotency_key, request_hash, status, claim_token, expires_at)
+                VALUES (?, ?, ?, 'IN_PROGRESS', ?, ?)
+                ON CONFLICT (username, idempotency_key) DO UPDATE
+                    SET request_hash = EXCLUDED.request_hash,
+                        status = 'IN_PROGRESS',
+                        claim_token = EXCLUDED.claim_token,
+                        response_body = NULL,
+                        created_at = now(),
+                        expires_at = EXCLUDED.expires_at
+                    WHERE idempotency_keys.expires_at < now()
+                """, username, key, requestHash, claimToken, Timestamp.from(expiresAt)) == 1;
+    }
+
+    /**
+     * Marks the key {@code COMMITTED} if {@code claimToken} still holds it.
+     *
+     * @return false if the claim was taken over by another request
+     */
+    public boolean commit(String username, String key, UUID claimToken, Instant expiresAt) {
+        return jdbcTemplate.update("""
+                UPDATE idempotency_keys SET status = 'COMMITTED', expires_at = ?
+                WHERE username = ? AND idempotency_key = ? AND claim_token = ?
+                """, Timestamp.from(expiresAt), username, key, claimToken) == 1;
+    }
+
+    public Optional<Entry> find(String username, String key) {
+        List<Entry> entries = jdbcTemplate.query("""
+                SELECT request_hash, status, response_body FROM idempotency_keys
+                WHERE username = ? AND idempotency_key = ? AND expires_at >= now()
+                """,
+                (rs, n) -> new Entry(rs.getString(1), Status.valueOf(rs.getString(2)), rs.getString(3)),
+                username, key);
+        return entries.stream().findFirst();
+    }
+
+    public void complete(String username, String key, UUID claimToken, String responseBody, Instant expiresAt) {
+        jdbcTemplate.update("""
+                UPDATE idempotency_keys SET status = 'COMPLETED', response_body = ?, expires_at = ?
+                WHERE username = ? AND idempotency_key = ? AND claim_token = ?
+                """, responseBody, Timestamp.from(expiresAt), username, key, claimToken);
+    }
+
+    /**
+     * Deletes the key unless the request committed something under it.
+     */
+    public void release(String username, String key, UUID claimToken) {
+        jdbcTemplate.update("""
+                DELETE FROM idempotency_keys
+                WHERE username = ? AND idempotency_key = ? AND claim_token = ? AND status = 'IN_PROGRESS'
+                """, username, key, claimToken);
+    }
+
+    public int deleteExpired() {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < now()");
+    }
+}
@@ -0,0 +1,64 @@
+package com.order.repository;
+
+import com.order.entities.Order;
+import com.order.entities.OrderItem;
+import com.order.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Inserts many orders with plain JDBC batches instead of one JPA persist per row. Ids and
+ * timestamps must already be assigned on the entities. With {@code reWriteBatchedInserts}
+ * on the PostgreSQL driver each batch goes out as a few multi-row inserts.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderBatchRepository {
+
+    private static final String INSERT_ORDER = """
+            INSERT INTO orders (id, username, order_total, created_at)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_ITEM = """
+            INSERT INTO order_items (id, order_id, order_created_at, product_id, quantity,
+                                     unit_price, discount_applied, total_price)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${order.bulk.jdbc-batch-size:500}")
+    private int batchSize;
+
+    public void insertAll(List<Order> orders) {
+
+        jdbcTemplate.batchUpdate(INSERT_ORDER, orders, batchSize, (ps, order) -> {
+            ps.setObject(1, order.getId());
+            ps.setString(2, order.getUsername());
+            ps.setBigDecimal(3, Money.toDecimal(order.getOrderTotal()));
+            ps.setObject(4, OffsetDateTime.ofInstant(order.getCreatedAt(), ZoneOffset.UTC));
+        });
+
+        List<OrderItem> items = orders.stream()
+                .flatMap(o -> o.getItems().stream())
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_ITEM, items, batchSize, (ps, item) -> {
+            ps.setObject(1, item.getId());
+            ps.setObject(2, item.getOrder().getId());
+            ps.setObject(3, OffsetDateTime.ofInstant(item.getOrder().getCreatedAt(), ZoneOffset.UTC));
+            ps.setObject(4, item.getProductId());
+            ps.setInt(5, item.getQuantity());
+            ps.setBigDecimal(6, Money.toDecimal(item.getUnitPrice()));
+            ps.setBigDecimal(7, Money.toDecimal(item.getDiscountApplied()));
+            ps.setBigDecimal(8, Money.toDecimal(item.getTotalPrice()));
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package com.order.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Id of an order together with its partition key, so follow-up queries can be bounded to the
+ * partitions the ids live in.
+ */
+public record OrderKey(UUID id, Instant createdAt) {
+}
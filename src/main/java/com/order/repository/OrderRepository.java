@@ -3,10 +3,83 @@ package com.order.repository;
 import com.order.entities.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface OrderRepository extends JpaRepository<Order, UUID> {
-    Page<Order> findByUsername(String username, Pageable pageable);
+
+    @Query(value = "select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o where o.username = :username",
+            countQuery = "select count(o) from Order o where o.username = :username")
+    Page<OrderKey> findIdPageByUsername(@Param("username") String username, Pageable pageable);
+
+    @Query("select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o where o.username = :username")
+    Slice<OrderKey> findIdSliceByUsername(@Param("username") String username, Pageable pageable);
+
+    @Query(value = "select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o",
+            countQuery = "select count(o) from Order o")
+    Page<OrderKey> findIdPage(Pageable pageable);
+
+    @Query("select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o")
+    Slice<OrderKey> findIdSlice(Pageable pageable);
+
+    @Query("select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o where o.username = :username order by o.createdAt desc, o.id desc")
+    List<OrderKey> findKeysetFirstIdsByUsername(@Param("username") String username, Pageable pageable);
+
+    @Query("""
+            select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o
+            where o.username = :username
+              and o.createdAt <= :createdAt
+              and (o.createdAt < :createdAt or o.id < :id)
+            order by o.createdAt desc, o.id desc
+            """)
+    List<OrderKey> findKeysetNextIdsByUsername(
+            @Param("username") String username,
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Pageable pageable
+    );
+
+    @Query("select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o order by o.createdAt desc, o.id desc")
+    List<OrderKey> findKeysetFirstIds(Pageable pageable);
+
+    @Query("""
+            select new com.order.repository.OrderKey(o.id, o.createdAt) from Order o
+            where o.createdAt <= :createdAt
+              and (o.createdAt < :createdAt or o.id < :id)
+            order by o.createdAt desc, o.id desc
+            """)
+    List<OrderKey> findKeysetNextIds(
+            @Param("createdAt") Instant createdAt,
+            @Param("id") UUID id,
+            Pageable pageable
+    );
+
+    /**
+     * The {@code createdAt} bound prunes the orders side to the partitions covering {@code [from, to]}.
+     * Items stay a left join so an order without items is still returned; Hibernate does not allow a
+     * restriction on a fetch join, so items are looked up in each partition through the
+     * {@code (order_id, order_created_at)} index.
+     */
+    @Query("""
+            select distinct o from Order o left join fetch o.items
+            where o.id in :ids
+              and o.createdAt between :from and :to
+            """)
+    List<Order> findAllWithItemsByIdIn(
+            @Param("ids") Collection<UUID> ids,
+            @Param("from") Instant from,
+            @Param("to") Instant to
+    );
+
+    @Modifying
+    @Query("update Order o set o.status = :status where o.id in :ids")
+    int updateStatus(@Param("ids") Collection<UUID> ids, @Param("status") Order.Status status);
 }
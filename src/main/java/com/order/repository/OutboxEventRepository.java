@@ -0,0 +1,68 @@
+package com.order.repository;
+
+import com.order.entities.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    @Query(value = """
+            SELECT * FROM outbox_events
+            WHERE status = 'PENDING' AND next_attempt_at <= now()
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("""
+            update OutboxEvent e
+            set e.status = com.order.entities.OutboxEvent.Status.PROCESSED, e.processedAt = :now
+            where e.id = :id and e.status = com.order.entities.OutboxEvent.Status.PENDING
+            """)
+    int markProcessed(@Param("id") UUID id, @Param("now") Instant now);
+
+    /**
+     * Settles an armed event only while it is still armed for {@code armedUntil}: a relay that
+     * claimed it has moved {@code nextAttemptAt}, and then nothing is updated.
+     */
+    @Modifying
+    @Query("""
+            update OutboxEvent e
+            set e.status = com.order.entities.OutboxEvent.Status.PROCESSED, e.processedAt = :now
+            where e.id = :id
+              and e.status = com.order.entities.OutboxEvent.Status.PENDING
+              and e.nextAttemptAt = :armedUntil
+              and e.nextAttemptAt > :now
+            """)
+    int settle(@Param("id") UUID id, @Param("armedUntil") Instant armedUntil, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update OutboxEvent e
+            set e.status = com.order.entities.OutboxEvent.Status.PROCESSED, e.processedAt = :now
+            where e.id in :ids
+              and e.status = com.order.entities.OutboxEvent.Status.PENDING
+              and e.nextAttemptAt = :armedUntil
+              and e.nextAttemptAt > :now
+            """)
+    int settleAll(@Param("ids") Collection<UUID> ids, @Param("armedUntil") Instant armedUntil, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+            update OutboxEvent e
+            set e.nextAttemptAt = :now
+            where e.id = :id
+              and e.status = com.order.entities.OutboxEvent.Status.PENDING
+              and e.nextAttemptAt = :armedUntil
+            """)
+    int makeDue(@Param("id") UUID id, @Param("armedUntil") Instant armedUntil, @Param("now") Instant now);
+}
@@ -0,0 +1,202 @@
+package com.order.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Incrementally maintained per-user aggregates in {@code user_order_summaries} and
+ * {@code user_product_totals}. Deltas are applied with upserts; callers pass them sorted by
+ * key so concurrent transactions lock the rows in the same order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserOrderSummaryRepository {
+
+    public record SummaryDelta(String username, long orders, BigDecimal total, Instant lastOrderAt) {
+    }
+
+    public record ProductDelta(String username, UUID productId, long quantity, long orders) {
+    }
+
+    public record Summary(String username, long orderCount, BigDecimal totalSpent, Instant lastOrderAt) {
+    }
+
+    public record ProductTotal(UUID productId, long quantity, long orderCount) {
+    }
+
+    private static final String UPSERT_SUMMARY = """
+            INSERT INTO user_order_summaries AS s (username, order_count, total_spent, last_order_at, updated_at)
+            VALUES (?, ?, ?, ?, now())
+            ON CONFLICT (username) DO UPDATE
+                SET order_count = s.order_count + EXCLUDED.order_count,
+                    total_spent = s.total_spent + EXCLUDED.total_spent,
+                    last_order_at = GREATEST(s.last_order_at, EXCLUDED.last_order_at),
+                    updated_at = now()
+            """;
+
+    private static final String UPSERT_PRODUCT = """
+            INSERT INTO user_product_totals AS t (username, product_id, quantity, order_count)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (username, product_id) DO UPDATE
+                SET quantity = t.quantity + EXCLUDED.quantity,
+                    order_count = t.order_count + EXCLUDED.order_count
+            """;
+
+    // arbitrary key shared by all instances for pg_try_advisory_lock
+    private static final long REBUILD_LOCK = 0x5355_4d4d_4152_59L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void apply(List<SummaryDelta> summaries, List<ProductDelta> products) {
+
+        jdbcTemplate.batchUpdate(UPSERT_SUMMARY, summaries, summaries.size(), (ps, d) -> {
+            ps.setString(1, d.username());
+            ps.setLong(2, d.orders());
+            ps.setBigDecimal(3, d.total());
+            ps.setTimestamp(4, Timestamp.from(d.lastOrderAt()));
+        });
+
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT, products, products.size(), (ps, d) -> {
+            ps.setString(1, d.username());
+            ps.setObject(2, d.productId());
+            ps.setLong(3, d.quantity());
+            ps.setLong(4, d.orders());
+        });
+    }
+
+    public Optional<Summary> find(String username) {
+        return jdbcTemplate.query("""
+                        SELECT username, order_count, total_spent, last_order_at
+                        FROM user_order_summaries WHERE username = ?
+                        """,
+                (rs, n) -> new Summary(
+                        rs.getString(1),
+                        rs.getLong(2),
+                        rs.getBigDecimal(3),
+                        rs.getTimestamp(4) != null ? rs.getTimestamp(4).toInstant() : null),
+                username
+        ).stream().findFirst();
+    }
+
+    public List<ProductTotal> topProducts(String username, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT product_id, quantity, order_count
+                        FROM user_product_totals WHERE username = ?
+                        ORDER BY quantity DESC
+                        LIMIT ?
+                        """,
+                (rs, n) -> new ProductTotal(rs.getObject(1, UUID.class), rs.getLong(2), rs.getLong(3)),
+                username, limit
+        );
+    }
+
+    /**
+     * Runs {@code task} only if no other instance holds the rebuild advisory lock. The lock is a
+     * session lock on a connection of its own; the task's transactions use other connections.
+     */
+    public boolean runExclusively(Runnable task) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!advisoryLock(con, "SELECT pg_try_advisory_lock(?)")) {
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                advisoryLock(con, "SELECT pg_advisory_unlock(?)");
+            }
+        }));
+    }
+
+    /**
+     * The next {@code limit} usernames after {@code after} that have orders or a summary row.
+     */
+    public List<String> nextUsernames(String after, int limit) {
+        return jdbcTemplate.queryForList("""
+                        SELECT username FROM (
+                            (SELECT username FROM user_order_summaries
+                             WHERE username > ? ORDER BY username LIMIT ?)
+                            UNION
+                            (SELECT DISTINCT username FROM orders
+                             WHERE username > ? ORDER BY username LIMIT ?)
+                        ) u
+                        ORDER BY username
+                        LIMIT ?
+                        """,
+                String.class, after, limit, after, limit, limit);
+    }
+
+    /**
+     * Recomputes both tables for {@code usernames} from {@code orders}. Must run in a
+     * transaction. The users' summary rows are created if missing and locked first, the same
+     * order placements lock them in, so a placement either committed before and is counted, or
+     * waits and adds its delta on top of the rebuilt rows.
+     */
+    public void rebuild(List<String> usernames) {
+
+        String[] users = usernames.toArray(String[]::new);
+
+        jdbcTemplate.update("""
+                INSERT INTO user_order_summaries (username)
+                SELECT u FROM unnest(?::varchar[]) u ORDER BY u
+                ON CONFLICT (username) DO NOTHING
+                """, (Object) users);
+        jdbcTemplate.queryForList("""
+                SELECT username FROM user_order_summaries
+                WHERE username = ANY (?) ORDER BY username FOR UPDATE
+                """, String.class, (Object) users);
+
+        jdbcTemplate.update("""
+                UPDATE user_order_summaries s
+                SET order_count = a.order_count,
+                    total_spent = a.total_spent,
+                    last_order_at = a.last_order_at,
+                    updated_at = now()
+                FROM (
+                    SELECT username, count(*) AS order_count, sum(order_total) AS total_spent,
+                           max(created_at) AS last_order_at
+                    FROM orders
+                    WHERE username = ANY (?)
+                    GROUP BY username
+                ) a
+                WHERE s.username = a.username
+                """, (Object) users);
+        jdbcTemplate.update("""
+                DELETE FROM user_order_summaries s
+                WHERE s.username = ANY (?)
+                  AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.username = s.username)
+                """, (Object) users);
+
+        jdbcTemplate.update("DELETE FROM user_product_totals WHERE username = ANY (?)", (Object) users);
+        jdbcTemplate.update("""
+                INSERT INTO user_product_totals (username, product_id, quantity, order_count)
+                SELECT o.username, i.product_id, sum(i.quantity), count(DISTINCT o.id)
+                FROM orders o
+                JOIN order_items i ON i.order_id = o.id AND i.order_created_at = o.created_at
+                WHERE o.username = ANY (?)
+                GROUP BY o.username, i.product_id
+                """, (Object) users);
+    }
+
+    private static boolean advisoryLock(Connection con, String sql) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setLong(1, REBUILD_LOCK);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.order.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.order.config.JWTConfig;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies bearer tokens with a signing key and parser built once at startup. Successfully
+ * verified tokens are cached by their SHA-256 hash until the token's own expiry (capped by
+ * {@code jwt.cache.max-ttl}), so repeated calls with the same token skip signature checks
+ * and claim parsing. Only the parsed username and authorities are cached; every call gets its
+ * own authentication object, since the filter chain may mutate it (details, erased credentials).
+ */
+@Component
+public class JwtTokenVerifier {
+
+    public static final String CACHE_NAME = "jwt-tokens";
+
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, VerifiedToken> cache;
+    private final long maxTtlNanos;
+
+    public JwtTokenVerifier(
+            JWTConfig jwtConfig,
+            @Value("${jwt.cache.max-size:10000}") long maxSize,
+            @Value("${jwt.cache.max-ttl:5m}") Duration maxTtl,
+            MeterRegistry meterRegistry
+    ) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes()))
+                .build();
+        this.maxTtlNanos = maxTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, VerifiedToken value, long currentTime) {
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(value.expiresAt() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the authentication for the token, or {@code null} when the token is valid but
+     * carries no subject.
+     *
+     * @throws JwtException if the token is malformed, expired or not signed with our key
+     */
+    public UsernamePasswordAuthenticationToken verify(String token) {
+
+        ByteBuffer key = hash(token);
+
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached.toAuthentication();
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+
+        String username = claims.getSubject();
+        if (username == null) {
+            return null;
+        }
+
+        String role = claims.get("role", String.class);
+        String authority = "ROLE_" + (role != null ? role : "USER");
+
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+        VerifiedToken verified = new VerifiedToken(username, List.of(new SimpleGrantedAuthority(authority)), expiresAt);
+        cache.put(key, verified);
+
+        return verified.toAuthentication();
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record VerifiedToken(String username, List<GrantedAuthority> authorities, long expiresAt) {
+
+        UsernamePasswordAuthenticationToken toAuthentication() {
+            return new UsernamePasswordAuthenticationToken(username, null, authorities);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.order.security;
+
+import com.order.config.JWTConfig;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+
+/**
+ * Mints the token used for calls to the product service that are not made on behalf of
+ * a user request: the outbox relay, batched stock deductions and the stock admission refresh.
+ * It is signed with the same {@code jwt.secret} as user tokens and carries the role
+ * {@code jwt.service-role} ({@code SERVICE}), which the product service must accept on those
+ * endpoints. Tokens are reused until shortly before expiry, so {@code jwt.expiration} must be
+ * longer than that renewal margin.
+ */
+@Component
+public class ServiceTokenProvider {
+
+    private static final long RENEW_BEFORE_EXPIRY_MS = 60_000;
+
+    private final JWTConfig jwtConfig;
+    private final SecretKey signingKey;
+
+    private volatile String token;
+    private volatile long expiresAt;
+
+    public ServiceTokenProvider(JWTConfig jwtConfig) {
+        if (jwtConfig.getExpiration() <= RENEW_BEFORE_EXPIRY_MS) {
+            throw new IllegalStateException("jwt.expiration (" + jwtConfig.getExpiration()
+                    + " ms) must exceed the service token renewal margin of " + RENEW_BEFORE_EXPIRY_MS + " ms");
+        }
+        this.jwtConfig = jwtConfig;
+        this.signingKey = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+    }
+
+    public String getToken() {
+        long now = System.currentTimeMillis();
+        if (token == null || now >= expiresAt - RENEW_BEFORE_EXPIRY_MS) {
+            synchronized (this) {
+                if (token == null || now >= expiresAt - RENEW_BEFORE_EXPIRY_MS) {
+                    long expiry = now + jwtConfig.getExpiration();
+                    token = Jwts.builder()
+                            .setSubject(jwtConfig.getServiceSubject())
+                            .claim("role", jwtConfig.getServiceRole())
+                            .setIssuedAt(new Date(now))
+                            .setExpiration(new Date(expiry))
+                            .signWith(signingKey)
+                            .compact();
+                    expiresAt = expiry;
+                }
+            }
+        }
+        return token;
+    }
+}
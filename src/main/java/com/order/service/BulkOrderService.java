@@ -0,0 +1,418 @@
+package com.order.service;
+
+import com.order.client.ProductServiceClient;
+import com.order.client.StockAdmissionGate;
+import com.order.dto.BatchStockDeductRequest;
+import com.order.dto.BatchStockReservationRequest;
+import com.order.dto.OrderRequest;
+import com.order.dto.StockCheckRequest;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.BatchStockDeductResponse;
+import com.order.dto.response.BatchStockReservationResponse;
+import com.order.dto.response.BulkOrderResponse;
+import com.order.dto.response.StockReservationResponse;
+import com.order.entities.Order;
+import com.order.entities.OrderItem;
+import com.order.entities.OutboxEvent;
+import com.order.entities.id.UuidV7Generator;
+import com.order.exception.BadRequestException;
+import com.order.exception.OrderProcessingException;
+import com.order.exception.ProductServiceException;
+import com.order.exception.ProductServiceUnavailableException;
+import com.order.exception.StockUnavailableException;
+import com.order.repository.OrderBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Places many orders in one request. Products are looked up once for all orders, stock for
+ * all of them is deducted (or reserved, with {@code product.service.reservations-enabled}) in
+ * a single exchange with the product service, and the accepted orders are written with JDBC
+ * batch inserts in chunks of {@code order.bulk.insert-chunk-size}. A chunk that fails is
+ * retried order by order, so only the orders that really cannot be saved fail and get their
+ * stock back. Deductions are covered by restores armed before the batch call and settled with
+ * their orders, as in {@link OrderService}. The response reports the outcome per request index.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkOrderService {
+
+    private final ProductServiceClient productClient;
+    private final StockAdmissionGate stockAdmissionGate;
+    private final OrderPricingService pricingService;
+    private final OrderMapper orderMapper;
+    private final OrderBatchRepository orderBatchRepository;
+    private final OutboxService outboxService;
+    private final OutboxRelay outboxRelay;
+
+    @Qualifier("productLookupExecutor")
+    private final ExecutorService confirmExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final UserOrderSummaryService summaryService;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${product.service.reservations-enabled:false}")
+    private boolean reservationsEnabled;
+
+    @Value("${product.service.reservation-ttl:30s}")
+    private Duration reservationTtl;
+
+    @Value("${order.bulk.max-orders:500}")
+    private int maxOrders;
+
+    @Value("${order.bulk.insert-chunk-size:100}")
+    private int insertChunkSize;
+
+    /**
+     * An order that got its stock and waits to be saved, with what undoes its stock change:
+     * a reservation to release or the armed restore of its deduction.
+     */
+    private record Accepted(
+            int index,
+            Order order,
+            StockReservationResponse reservation,
+            OutboxEvent restore
+    ) {
+    }
+
+    public BulkOrderResponse placeOrders(String username, String role, String jwtToken, List<OrderRequest> requests) {
+
+        if (requests == null || requests.isEmpty()) {
+            throw new BadRequestException("At least one order is required");
+        }
+        if (requests.size() > maxOrders) {
+            throw new BadRequestException("At most " + maxOrders + " orders can be placed at once");
+        }
+
+        log.atInfo()
+                .addKeyValue("user", username)
+                .addKeyValue("orders", requests.size())
+                .log("Placing bulk orders");
+
+        BulkOrderResponse.Result[] results = new BulkOrderResponse.Result[requests.size()];
+        List<Integer> admitted = admit(requests, results);
+
+        List<Accepted> accepted = reservationsEnabled
+                ? reserve(username, role, jwtToken, requests, admitted, results)
+                : deduct(username, role, jwtToken, requests, admitted, results);
+
+        persist(accepted, results, jwtToken);
+
+        log.atInfo()
+                .addKeyValue("user", username)
+                .addKeyValue("requested", requests.size())
+                .addKeyValue("accepted", accepted.size())
+                .log("Bulk orders processed");
+
+        return toResponse(results);
+    }
+
+    private List<Integer> admit(List<OrderRequest> requests, BulkOrderResponse.Result[] results) {
+
+        List<Integer> admitted = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                stockAdmissionGate.admit(stockChecks(requests.get(i)));
+                admitted.add(i);
+            } catch (StockUnavailableException ex) {
+                results[i] = BulkOrderResponse.Result.failed(i, ex.getMessage());
+            }
+        }
+        return admitted;
+    }
+
+    /**
+     * Prices every order from one product lookup, then deducts the stock of all priced orders
+     * in one batch call; each order keeps or loses its deduction on its own.
+     */
+    private List<Accepted> deduct(
+            String username,
+            String role,
+            String jwtToken,
+            List<OrderRequest> requests,
+            List<Integer> admitted,
+            BulkOrderResponse.Result[] results
+    ) {
+
+        if (admitted.isEmpty()) {
+            return List.of();
+        }
+
+        Set<UUID> productIds = new LinkedHashSet<>();
+        admitted.forEach(i -> requests.get(i).getItems().forEach(item -> productIds.add(item.getProductId())));
+
+        Map<UUID, Long> unitPrices;
+        try {
+            unitPrices = OrderPricingService.unitPrices(productClient.getProducts(productIds, jwtToken));
+        } catch (ProductServiceUnavailableException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("Failed to fetch product details: {}", ex.getMessage());
+            throw new ProductServiceException("Failed to fetch product details", ex);
+        }
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Map<Integer, Order> priced = new LinkedHashMap<>();
+
+        for (int i : admitted) {
+            try {
+                Order order = pricingService.buildOrder(username, role, requests.get(i).getItems(), unitPrices);
+                assignKeys(order, now);
+                priced.put(i, order);
+            } catch (ProductServiceException ex) {
+                results[i] = BulkOrderResponse.Result.failed(i, ex.getMessage());
+            }
+        }
+
+        if (priced.isEmpty()) {
+            return List.of();
+        }
+
+        List<Integer> indexes = new ArrayList<>(priced.keySet());
+        List<OutboxEvent> restores;
+        try {
+            restores = outboxService.armRestoreStockAll(
+                    indexes.stream().map(i -> stockDeductions(requests.get(i))).toList());
+        } catch (Exception ex) {
+            log.error("Could not record the stock restore intents, not deducting: {}", ex.getMessage());
+            throw new OrderProcessingException("Could not save orders", ex);
+        }
+
+        List<BatchStockDeductRequest.Entry> entries = new ArrayList<>(indexes.size());
+        for (int k = 0; k < indexes.size(); k++) {
+            entries.add(new BatchStockDeductRequest.Entry(
+                    restores.get(k).getIdempotencyKey().toString(), stockDeductions(requests.get(indexes.get(k)))));
+        }
+
+        Map<String, BatchStockDeductResponse.Result> deductions;
+        try {
+            deductions = productClient.deductStockBatch(entries, jwtToken);
+        } catch (Exception ex) {
+            restores.forEach(restore -> abandon(restore, ex));
+            if (ex instanceof ProductServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            log.error("Batch stock deduction failed: {}", ex.getMessage());
+            throw new ProductServiceException("Stock deduction failed", ex);
+        }
+
+        List<Accepted> accepted = new ArrayList<>(entries.size());
+        for (int k = 0; k < indexes.size(); k++) {
+            int i = indexes.get(k);
+            OutboxEvent restore = restores.get(k);
+            BatchStockDeductResponse.Result deducted = deductions.get(entries.get(k).getReference());
+
+            if (deducted == null) {
+                // outcome unknown: the restore goes to the relay
+                abandon(restore, new ProductServiceException("No deduction result returned"));
+                results[i] = BulkOrderResponse.Result.failed(i, "Stock deduction failed (stock restore scheduled)");
+                continue;
+            }
+            if (!deducted.isDeducted()) {
+                String reason = deducted.getError() != null ? deducted.getError() : "Stock deduction failed";
+                abandon(restore, new StockUnavailableException(reason));
+                results[i] = BulkOrderResponse.Result.failed(i, reason);
+                continue;
+            }
+            accepted.add(new Accepted(i, priced.get(i), null, restore));
+        }
+        return accepted;
+    }
+
+    private List<Accepted> reserve(
+            String username,
+            String role,
+            String jwtToken,
+            List<OrderRequest> requests,
+            List<Integer> admitted,
+            BulkOrderResponse.Result[] results
+    ) {
+
+        if (admitted.isEmpty()) {
+            return List.of();
+        }
+
+        List<BatchStockReservationRequest.Entry> entries = new ArrayList<>(admitted.size());
+        for (int i : admitted) {
+            entries.add(new BatchStockReservationRequest.Entry(String.valueOf(i), stockChecks(requests.get(i))));
+        }
+
+        Map<String, BatchStockReservationResponse.Result> reservations;
+        try {
+            reservations = productClient.reserveStockBatch(entries, reservationTtl, jwtToken);
+        } catch (ProductServiceUnavailableException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("Batch stock reservation failed: {}", ex.getMessage());
+            throw new ProductServiceException("Stock reservation failed", ex);
+        }
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<Accepted> accepted = new ArrayList<>(admitted.size());
+
+        for (int i : admitted) {
+
+            BatchStockReservationResponse.Result reserved = reservations.get(String.valueOf(i));
+
+            if (reserved == null || !reserved.isReserved() || reserved.getReservation() == null) {
+                String reason = reserved != null && reserved.getError() != null
+                        ? reserved.getError()
+                        : "Stock reservation failed";
+                results[i] = BulkOrderResponse.Result.failed(i, reason);
+                continue;
+            }
+
+            StockReservationResponse reservation = reserved.getReservation();
+            Map<UUID, Long> unitPrices = OrderPricingService.unitPrices(reservation.getItems());
+
+            try {
+                Order order = pricingService.buildOrder(username, role, requests.get(i).getItems(), unitPrices);
+                assignKeys(order, now);
+                accepted.add(new Accepted(i, order, reservation, null));
+            } catch (ProductServiceException ex) {
+                releaseReservation(reservation);
+                results[i] = BulkOrderResponse.Result.failed(i, ex.getMessage());
+            }
+        }
+        return accepted;
+    }
+
+    private void persist(List<Accepted> accepted, BulkOrderResponse.Result[] results, String jwtToken) {
+
+        for (int from = 0; from < accepted.size(); from += insertChunkSize) {
+            List<Accepted> chunk = accepted.subList(from, Math.min(from + insertChunkSize, accepted.size()));
+            try {
+                confirm(insert(chunk), jwtToken);
+                chunk.forEach(a -> results[a.index()] = BulkOrderResponse.Result.created(
+                        a.index(), orderMapper.toResponse(a.order())));
+            } catch (Exception chunkEx) {
+                log.warn("Saving a chunk of {} bulk orders failed, saving them one by one: {}",
+                        chunk.size(), chunkEx.getMessage());
+                for (Accepted a : chunk) {
+                    List<OutboxEvent> confirmations;
+                    try {
+                        confirmations = insert(List.of(a));
+                    } catch (Exception ex) {
+                        log.error("Failed to save bulk order {}: {}", a.index(), ex.getMessage());
+                        results[a.index()] = BulkOrderResponse.Result.failed(a.index(), compensate(a));
+                        continue;
+                    }
+                    confirm(confirmations, jwtToken);
+                    results[a.index()] = BulkOrderResponse.Result.created(a.index(), orderMapper.toResponse(a.order()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the orders and queues the confirmation of their reservations, returning the queued
+     * confirmations so they can be sent right after commit.
+     */
+    private List<OutboxEvent> insert(List<Accepted> chunk) {
+        List<Order> orders = chunk.stream().map(Accepted::order).toList();
+        return transactionTemplate.execute(status -> {
+            orderBatchRepository.insertAll(orders);
+            summaryService.recordPlaced(orders);
+            List<OutboxEvent> restores = new ArrayList<>();
+            List<OutboxEvent> confirmations = new ArrayList<>();
+            for (Accepted a : chunk) {
+                if (a.reservation() != null) {
+                    confirmations.add(outboxService.enqueueConfirmReservation(a.order().getId(), a.reservation()));
+                } else {
+                    restores.add(a.restore());
+                }
+            }
+            outboxService.settleAll(restores);
+            idempotencyService.markCommitted();
+            return confirmations;
+        });
+    }
+
+    /**
+     * Sends a chunk's confirmations side by side; each one the product service does not take is
+     * left to the relay.
+     */
+    private void confirm(List<OutboxEvent> confirmations, String jwtToken) {
+        CompletableFuture.allOf(confirmations.stream()
+                        .map(event -> CompletableFuture.runAsync(
+                                () -> outboxRelay.deliverNow(event, jwtToken), confirmExecutor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    private String compensate(Accepted accepted) {
+
+        if (accepted.reservation() != null) {
+            releaseReservation(accepted.reservation());
+            return "Could not save order (reservation released)";
+        }
+
+        try {
+            outboxService.releaseNow(accepted.restore());
+        } catch (Exception ex) {
+            log.warn("Could not release stock restore {} early, it becomes due at {}: {}",
+                    accepted.restore().getId(), accepted.restore().getNextAttemptAt(), ex.getMessage());
+        }
+        return "Could not save order (stock restore scheduled)";
+    }
+
+    private void abandon(OutboxEvent restore, Exception deductFailure) {
+        try {
+            outboxService.abandon(restore, deductFailure);
+        } catch (Exception ex) {
+            log.warn("Could not update stock restore {}, it becomes due at {}: {}",
+                    restore.getId(), restore.getNextAttemptAt(), ex.getMessage());
+        }
+    }
+
+    private static List<StockCheckRequest> stockChecks(OrderRequest request) {
+        return request.getItems().stream()
+                .map(item -> new StockCheckRequest(item.getProductId(), item.getQuantity()))
+                .toList();
+    }
+
+    private static List<StockDeductRequest> stockDeductions(OrderRequest request) {
+        return request.getItems().stream()
+                .map(item -> new StockDeductRequest(item.getProductId(), item.getQuantity()))
+                .toList();
+    }
+
+    private static void assignKeys(Order order, Instant createdAt) {
+        order.setId(UuidV7Generator.next());
+        order.setCreatedAt(createdAt);
+        for (OrderItem item : order.getItems()) {
+            item.setId(UuidV7Generator.next());
+        }
+    }
+
+    private void releaseReservation(StockReservationResponse reservation) {
+        try {
+            outboxService.enqueueReleaseReservation(reservation.getReservationId());
+        } catch (Exception ex) {
+            log.error("Queueing release of reservation {} failed, it will expire at {}. Reason: {}",
+                    reservation.getReservationId(), reservation.getExpiresAt(), ex.getMessage());
+        }
+    }
+
+    private static BulkOrderResponse toResponse(BulkOrderResponse.Result[] results) {
+        int succeeded = 0;
+        for (BulkOrderResponse.Result r : results) {
+            if (r.getStatus() == BulkOrderResponse.Status.CREATED) {
+                succeeded++;
+            }
+        }
+        return new BulkOrderResponse(succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+}
@@ -0,0 +1,215 @@
+package com.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.exception.BadRequestException;
+import com.order.exception.IdempotencyConflictException;
+import com.order.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} and user. The first request claims
+ * the key in {@code idempotency_keys}; its response is stored there and replayed to retries
+ * until {@code idempotency.ttl} elapses. Retries that arrive while the original is still
+ * running wait up to {@code idempotency.wait-timeout} for its result. If the original fails
+ * before committing anything, the key is released so a retry can run the request again.
+ * <p>
+ * The transaction that saves the request's orders calls {@link #markCommitted()}, which marks
+ * the key {@code COMMITTED} together with the orders. A committed key is never claimed again
+ * within the ttl, even if storing the response fails. A claim not committed within
+ * {@code idempotency.in-flight-timeout} can be taken over by a retry; the original then can
+ * no longer commit, so its save rolls back.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long MAX_POLL_MS = 1000;
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+
+    private record Claim(String username, String key, UUID token) {
+    }
+
+    // requests owned by this instance, so local retries need not poll the table
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    // the claim of the idempotent request running on this thread, for markCommitted
+    private final ThreadLocal<Claim> currentClaim = new ThreadLocal<>();
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${idempotency.in-flight-timeout:5m}")
+    private Duration inFlightTimeout;
+
+    @Value("${idempotency.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    @Value("${idempotency.poll-interval-ms:50}")
+    private long pollIntervalMs;
+
+    public <T> T execute(String username, String key, Object request, Class<T> responseType, Supplier<T> action) {
+
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String requestHash = hash(request);
+        String localKey = username + '\n' + key;
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        long pollMs = pollIntervalMs;
+        boolean committed = false;
+
+        while (true) {
+
+            UUID token = UUID.randomUUID();
+            if (repository.claim(username, key, requestHash, token, Instant.now().plus(inFlightTimeout))) {
+                return runClaimed(new Claim(username, key, token), localKey, action);
+            }
+
+            Optional<IdempotencyKeyRepository.Entry> entry = repository.find(username, key);
+
+            if (entry.isPresent()) {
+                if (!entry.get().requestHash().equals(requestHash)) {
+                    throw new IdempotencyConflictException("Idempotency-Key was already used for a different request");
+                }
+                if (entry.get().status() == IdempotencyKeyRepository.Status.COMPLETED) {
+                    log.atInfo().addKeyValue("user", username).addKeyValue("key", key).log("Replaying stored response");
+                    return read(entry.get().responseBody(), responseType);
+                }
+                committed = entry.get().status() == IdempotencyKeyRepository.Status.COMMITTED;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw stillProcessing(committed);
+            }
+
+            CompletableFuture<String> original = inFlight.get(localKey);
+            try {
+                if (original != null) {
+                    return read(original.get(remaining, TimeUnit.NANOSECONDS), responseType);
+                }
+                Thread.sleep(Math.min(pollMs, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+                pollMs = Math.min(pollMs * 2, MAX_POLL_MS);
+            } catch (ExecutionException | CancellationException e) {
+                // the original failed; unless it committed something, it released the key
+            } catch (TimeoutException e) {
+                throw stillProcessing(committed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyConflictException("Interrupted while waiting for the original request");
+            }
+        }
+    }
+
+    /**
+     * Marks the key of the idempotent request running on this thread as {@code COMMITTED}, in
+     * the caller's transaction. Does nothing outside an idempotent request.
+     *
+     * @throws IdempotencyConflictException if a retry has taken the claim over, which rolls
+     *                                      the caller's transaction back
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markCommitted() {
+        Claim claim = currentClaim.get();
+        if (claim != null && !repository.commit(claim.username(), claim.key(), claim.token(), Instant.now().plus(ttl))) {
+            throw new IdempotencyConflictException("Idempotency-Key was taken over by a retry after "
+                    + inFlightTimeout + "; this request is abandoned");
+        }
+    }
+
+    private <T> T runClaimed(Claim claim, String localKey, Supplier<T> action) {
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        inFlight.put(localKey, result);
+        currentClaim.set(claim);
+
+        try {
+            T response = action.get();
+            String body = write(response);
+
+            try {
+                repository.complete(claim.username(), claim.key(), claim.token(), body, Instant.now().plus(ttl));
+            } catch (RuntimeException e) {
+                log.error("Could not store response for Idempotency-Key {}, retries cannot replay it: {}",
+                        claim.key(), e.getMessage());
+            }
+
+            result.complete(body);
+            return response;
+        } catch (RuntimeException ex) {
+            try {
+                repository.release(claim.username(), claim.key(), claim.token());
+            } catch (RuntimeException releaseEx) {
+                log.warn("Could not release Idempotency-Key {}, it expires after {}: {}",
+                        claim.key(), inFlightTimeout, releaseEx.getMessage());
+            }
+            result.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            currentClaim.remove();
+            inFlight.remove(localKey, result);
+        }
+    }
+
+    private static IdempotencyConflictException stillProcessing(boolean committed) {
+        return new IdempotencyConflictException(committed
+                ? "A request with this Idempotency-Key was already processed, but its response is not available"
+                : "A request with this Idempotency-Key is still being processed");
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = repository.deleteExpired();
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response", e);
+        }
+    }
+}
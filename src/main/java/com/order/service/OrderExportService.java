@@ -0,0 +1,233 @@
+package com.order.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.dto.response.OrderItemResponse;
+import com.order.dto.response.OrderResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Streams orders straight from a forward-only JDBC cursor to an output stream. Rows are read
+ * {@code order.export.fetch-size} at a time inside a read-only transaction (PostgreSQL only
+ * uses a server-side cursor with auto-commit off) and the output is flushed every
+ * {@code order.export.flush-every} records, so heap use stays flat however many orders exist.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final String EXPORT_SQL = """
+            SELECT o.id, o.username, o.order_total, o.created_at,
+                   i.product_id, i.quantity, i.unit_price, i.discount_applied, i.total_price
+            FROM orders o
+            LEFT JOIN order_items i ON i.order_id = o.id AND i.order_created_at = o.created_at
+            %s
+            ORDER BY o.created_at, o.id
+            """;
+
+    private static final String CSV_HEADER =
+            "order_id,username,order_total,created_at,product_id,quantity,unit_price,discount_applied,total_price\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${order.export.flush-every:500}")
+    private int flushEvery;
+
+    public void export(String username, Format format, OutputStream out) {
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        RowCallbackHandler handler = format == Format.CSV
+                ? new CsvRowWriter(writer)
+                : new NdjsonRowWriter(writer);
+
+        String sql = EXPORT_SQL.formatted(username != null ? "WHERE o.username = ?" : "");
+
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(
+                con -> {
+                    PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    if (username != null) {
+                        ps.setString(1, username);
+                    }
+                    return ps;
+                },
+                handler
+        ));
+
+        try {
+            if (handler instanceof NdjsonRowWriter ndjson) {
+                ndjson.finish();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final class CsvRowWriter implements RowCallbackHandler {
+
+        private final Writer writer;
+        private long rows;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+            write(CSV_HEADER);
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            StringBuilder line = new StringBuilder(160)
+                    .append(rs.getString(1)).append(',')
+                    .append(csv(rs.getString(2))).append(',')
+                    .append(rs.getBigDecimal(3).toPlainString()).append(',')
+                    .append(rs.getTimestamp(4).toInstant()).append(',');
+
+            String productId = rs.getString(5);
+            if (productId != null) {
+                line.append(productId).append(',')
+                        .append(rs.getInt(6)).append(',')
+                        .append(rs.getBigDecimal(7).toPlainString()).append(',')
+                        .append(rs.getBigDecimal(8) != null ? rs.getBigDecimal(8).toPlainString() : "0").append(',')
+                        .append(rs.getBigDecimal(9).toPlainString());
+            } else {
+                line.append(",,,,");
+            }
+
+            write(line.append('\n').toString());
+
+            if (++rows % flushEvery == 0) {
+                flush(writer);
+            }
+        }
+
+        private void write(String s) {
+            try {
+                writer.write(s);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    /**
+     * Rows arrive grouped by order, so one order is buffered at a time and written as a
+     * single JSON line once the next order starts.
+     */
+    private final class NdjsonRowWriter implements RowCallbackHandler {
+
+        private final Writer writer;
+        private final JsonGenerator generator;
+        private OrderResponse current;
+        private long orders;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+            try {
+                this.generator = objectMapper.getFactory()
+                        .createGenerator(writer)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+                this.generator.setRootValueSeparator(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+
+            UUID orderId = rs.getObject(1, UUID.class);
+
+            if (current == null || !current.getOrderId().equals(orderId)) {
+                writeCurrent();
+
+                Timestamp createdAt = rs.getTimestamp(4);
+                current = new OrderResponse();
+                current.setOrderId(orderId);
+                current.setUsername(rs.getString(2));
+                current.setOrderTotal(rs.getBigDecimal(3));
+                current.setCreatedAt(createdAt != null ? createdAt.toInstant() : null);
+                current.setItems(new ArrayList<>());
+            }
+
+            UUID productId = rs.getObject(5, UUID.class);
+            if (productId != null) {
+                OrderItemResponse item = new OrderItemResponse();
+                item.setProductId(productId);
+                item.setQuantity(rs.getInt(6));
+                item.setUnitPrice(rs.getBigDecimal(7));
+                item.setDiscountApplied(rs.getBigDecimal(8) != null ? rs.getBigDecimal(8) : BigDecimal.ZERO);
+                item.setTotalPrice(rs.getBigDecimal(9));
+                current.getItems().add(item);
+            }
+        }
+
+        void finish() throws IOException {
+            writeCurrent();
+            generator.flush();
+        }
+
+        private void writeCurrent() {
+            if (current == null) {
+                return;
+            }
+            try {
+                objectMapper.writeValue(generator, current);
+                generator.writeRaw('\n');
+                if (++orders % flushEvery == 0) {
+                    generator.flush();
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void flush(Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.order.service;
+
+import com.order.dto.response.OrderItemResponse;
+import com.order.dto.response.OrderResponse;
+import com.order.entities.Order;
+import com.order.money.Money;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class OrderMapper {
+
+    public OrderResponse toResponse(Order order) {
+
+        OrderResponse response = new OrderResponse();
+        response.setOrderId(order.getId());
+        response.setUsername(order.getUsername());
+        response.setStatus(order.getStatus() != null ? order.getStatus().name() : null);
+        response.setOrderTotal(Money.toDecimal(order.getOrderTotal()));
+        response.setCreatedAt(order.getCreatedAt());
+
+        List<OrderItemResponse> items = order.getItems().stream().map(item -> {
+            OrderItemResponse dto = new OrderItemResponse();
+            dto.setProductId(item.getProductId());
+            dto.setQuantity(item.getQuantity());
+            dto.setUnitPrice(Money.toDecimal(item.getUnitPrice()));
+            dto.setDiscountApplied(Money.toDecimal(item.getDiscountApplied()));
+            dto.setTotalPrice(Money.toDecimal(item.getTotalPrice()));
+            return dto;
+        }).toList();
+
+        response.setItems(items);
+        return response;
+    }
+}
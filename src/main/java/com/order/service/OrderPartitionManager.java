@@ -0,0 +1,139 @@
+package com.order.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains the monthly partitions of {@code orders} and {@code order_items} (see V6). Partitions
+ * for the current month and {@code order.partitions.months-ahead} more are created on startup and
+ * daily. Months older than {@code order.partitions.retention-months} are detached from both
+ * tables and either kept as standalone archive tables or dropped; a retention of 0 keeps all.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderPartitionManager {
+
+    private static final List<String> TABLES = List.of("orders", "order_items");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${order.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${order.partitions.drop-detached:false}")
+    private boolean dropDetached;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${order.partitions.cron:0 15 2 * * *}")
+    public void maintain() {
+
+        if (!enabled) {
+            return;
+        }
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartitions(current.plusMonths(i));
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            existingMonths().stream()
+                    .filter(month -> month.isBefore(oldestKept))
+                    .forEach(this::detachPartitions);
+        }
+    }
+
+    private void createPartitions(YearMonth month) {
+        String from = month.atDay(1) + " 00:00:00+00";
+        String to = month.plusMonths(1).atDay(1) + " 00:00:00+00";
+        try {
+            for (String table : TABLES) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')"
+                        .formatted(partition(table, month), table, from, to));
+            }
+        } catch (Exception ex) {
+            log.error("Could not create order partitions for {}: {}", month, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Items first: their partition keeps a copy of the foreign key to {@code orders}, which is
+     * dropped before the matching orders partition is detached.
+     */
+    private void detachPartitions(YearMonth month) {
+
+        String orders = partition("orders", month);
+        String items = partition("order_items", month);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE order_items DETACH PARTITION " + items);
+                jdbcTemplate.queryForList(
+                        "SELECT conname FROM pg_constraint WHERE conrelid = ?::regclass AND contype = 'f'",
+                        String.class, items
+                ).forEach(fk -> jdbcTemplate.execute("ALTER TABLE %s DROP CONSTRAINT \"%s\"".formatted(items, fk)));
+                jdbcTemplate.execute("ALTER TABLE orders DETACH PARTITION " + orders);
+
+                if (dropDetached) {
+                    jdbcTemplate.execute("DROP TABLE " + items + ", " + orders);
+                }
+            });
+            log.atInfo()
+                    .addKeyValue("month", month)
+                    .addKeyValue("dropped", dropDetached)
+                    .log("Detached order partitions");
+        } catch (Exception ex) {
+            log.error("Could not detach order partitions for {}: {}", month, ex.getMessage(), ex);
+        }
+    }
+
+    private List<YearMonth> existingMonths() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'orders'::regclass
+                        """, String.class)
+                .stream()
+                .map(OrderPartitionManager::monthOf)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    private static String partition(String table, YearMonth month) {
+        return table + "_" + SUFFIX.format(month);
+    }
+
+    private static YearMonth monthOf(String partition) {
+        try {
+            return YearMonth.parse(partition.substring("orders_".length()), SUFFIX);
+        } catch (DateTimeParseException | IndexOutOfBoundsException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.order.service;
+
+import com.order.discount.DiscountEngine;
+import com.order.dto.OrderRequest;
+import com.order.dto.response.ProductResponse;
+import com.order.entities.Order;
+import com.order.entities.OrderItem;
+import com.order.dto.response.StockReservationResponse;
+import com.order.exception.ProductServiceException;
+import com.order.metrics.OrderMetrics;
+import com.order.money.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices the requested items and applies the discounts, producing an unsaved {@link Order}.
+ * Shared by the blocking and the reactive placement pipelines.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderPricingService {
+
+    private final DiscountEngine discountEngine;
+    private final OrderMetrics orderMetrics;
+
+    public Order buildOrder(
+            String username,
+            String role,
+            List<OrderRequest.ItemRequest> items,
+            Map<UUID, Long> unitPrices
+    ) {
+
+        long subtotal = 0;
+        List<OrderItem> orderItems = new ArrayList<>(items.size());
+
+        for (OrderRequest.ItemRequest i : items) {
+
+            Long unitPrice = unitPrices.get(i.getProductId());
+
+            if (unitPrice == null) {
+                log.error("Product {} not found", i.getProductId());
+                throw new ProductServiceException("Product not found: " + i.getProductId());
+            }
+
+            long total = Money.times(unitPrice, i.getQuantity());
+            subtotal += total;
+
+            orderItems.add(
+                    OrderItem.builder()
+                            .productId(i.getProductId())
+                            .unitPrice(unitPrice)
+                            .quantity(i.getQuantity())
+                            .totalPrice(total)
+                            .build()
+            );
+
+            if (log.isDebugEnabled()) {
+                log.atDebug()
+                        .addKeyValue("productId", i.getProductId())
+                        .addKeyValue("qty", i.getQuantity())
+                        .addKeyValue("unitPrice", unitPrice)
+                        .addKeyValue("total", total)
+                        .log("Computed order item");
+            }
+        }
+
+        Order order = Order.builder()
+                .username(username)
+                .orderTotal(calculateTotal(role, subtotal, orderItems))
+                .items(orderItems)
+                .build();
+
+        orderItems.forEach(item -> item.setOrder(order));
+        return order;
+    }
+
+    /**
+     * Unit prices in minor units, keyed by product id. Products without a price are left out.
+     */
+    public static Map<UUID, Long> unitPrices(Map<UUID, ProductResponse> products) {
+        Map<UUID, Long> unitPrices = new HashMap<>();
+        products.forEach((id, product) -> {
+            if (product.getPrice() != null) {
+                unitPrices.put(id, Money.toMinor(product.getPrice()));
+            }
+        });
+        return unitPrices;
+    }
+
+    public static Map<UUID, Long> unitPrices(List<StockReservationResponse.ReservedItem> reservedItems) {
+        Map<UUID, Long> unitPrices = new HashMap<>();
+        reservedItems.forEach(r -> {
+            if (r.getUnitPrice() != null) {
+                unitPrices.put(r.getProductId(), Money.toMinor(r.getUnitPrice()));
+            }
+        });
+        return unitPrices;
+    }
+
+    private long calculateTotal(String role, long subtotal, List<OrderItem> orderItems) {
+
+        long start = System.nanoTime();
+        long discounted = discountEngine.plan().apply(role, orderItems, System.currentTimeMillis());
+        orderMetrics.discountTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (log.isDebugEnabled()) {
+            log.atDebug()
+                    .addKeyValue("role", role)
+                    .addKeyValue("subtotal", subtotal)
+                    .addKeyValue("total", discounted)
+                    .log("Calculated discounted total");
+        }
+        return discounted;
+    }
+}
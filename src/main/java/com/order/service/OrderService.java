@@ -1,31 +1,44 @@
 package com.order.service;
 
 import com.order.client.ProductServiceClient;
-import com.order.discount.DiscountFactory;
-import com.order.discount.impl.LargeOrderDiscountStrategy;
+import com.order.client.StockAdmissionGate;
+import com.order.client.StockDeductionBatcher;
 import com.order.dto.OrderRequest;
 import com.order.dto.StockCheckRequest;
 import com.order.dto.StockDeductRequest;
-import com.order.dto.response.OrderItemResponse;
+import com.order.dto.response.CursorPagedResponse;
 import com.order.dto.response.OrderResponse;
 import com.order.dto.response.PagedResponse;
 import com.order.dto.response.ProductResponse;
+import com.order.dto.response.StockReservationResponse;
 import com.order.entities.Order;
-import com.order.entities.OrderItem;
+import com.order.entities.OutboxEvent;
 import com.order.exception.OrderProcessingException;
 import com.order.exception.ProductServiceException;
+import com.order.exception.ProductServiceUnavailableException;
+import com.order.metrics.OrderMetrics;
+import com.order.repository.OrderKey;
 import com.order.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -33,123 +46,255 @@ import java.util.List;
 public class OrderService {
 
     private final ProductServiceClient productClient;
-    private final DiscountFactory discountFactory;
+    private final StockDeductionBatcher stockDeductionBatcher;
+    private final StockAdmissionGate stockAdmissionGate;
+    private final OrderPricingService pricingService;
+    private final OrderMapper orderMapper;
     private final OrderRepository orderRepository;
+    private final OutboxService outboxService;
+    private final OutboxRelay outboxRelay;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderMetrics orderMetrics;
+    private final UserOrderSummaryService summaryService;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${product.service.reservations-enabled:false}")
+    private boolean reservationsEnabled;
+
+    @Value("${product.service.reservation-ttl:30s}")
+    private Duration reservationTtl;
+
+    @Value("${order.pagination.max-page-size:100}")
+    private int maxPageSize;
 
     public OrderResponse placeOrder(String username, String role, String jwtToken, OrderRequest request) {
 
-        log.info("User '{}' is placing an order with {} item(s)", username, request.getItems().size());
+        log.atInfo()
+                .addKeyValue("user", username)
+                .addKeyValue("items", request.getItems().size())
+                .log("Placing order");
 
-        try {
-            List<StockCheckRequest> stockCheckList = request.getItems().stream()
-                    .map(i -> new StockCheckRequest(i.getProductId(), i.getQuantity()))
-                    .toList();
+        if (reservationsEnabled) {
+            return orderMetrics.placement(OrderMetrics.FLOW_RESERVED,
+                    () -> placeReservedOrder(username, role, jwtToken, request));
+        }
+
+        return orderMetrics.placement(OrderMetrics.FLOW_BLOCKING,
+                () -> placeDeductedOrder(username, role, jwtToken, request));
+    }
+
+    private OrderResponse placeDeductedOrder(String username, String role, String jwtToken, OrderRequest request) {
+
+        List<StockCheckRequest> stockCheckList = request.getItems().stream()
+                .map(i -> new StockCheckRequest(i.getProductId(), i.getQuantity()))
+                .toList();
+
+        stockAdmissionGate.admit(stockCheckList);
 
-            log.info("Sending stock validation request to Product Service. Items: {}", stockCheckList);
-            productClient.validateStock(stockCheckList, jwtToken);
-            log.info("Stock validation successful");
+        try {
+            log.atDebug().addKeyValue("items", stockCheckList).log("Sending stock validation request to Product Service");
+            orderMetrics.stage(OrderMetrics.STAGE_VALIDATE_STOCK,
+                    () -> productClient.validateStock(stockCheckList, jwtToken));
+            log.debug("Stock validation successful");
+        } catch (ProductServiceUnavailableException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.error("Stock validation failed: {}", ex.getMessage());
             throw new ProductServiceException("Stock validation failed", ex);
         }
 
-        double subtotal = 0;
-        List<OrderItem> orderItems = new ArrayList<>();
+        Order order;
 
         try {
-            for (OrderRequest.ItemRequest i : request.getItems()) {
-
-                log.info("Fetching product details for productId={}", i.getProductId());
-                ProductResponse product = productClient.getProduct(i.getProductId(), jwtToken);
-
-                if (product == null) {
-                    log.error("Product {} not found", i.getProductId());
-                    throw new ProductServiceException("Product not found: " + i.getProductId());
-                }
-
-                double total = product.getPrice() * i.getQuantity();
-                subtotal += total;
-
-                orderItems.add(
-                        OrderItem.builder()
-                                .productId(product.getId())
-                                .unitPrice(product.getPrice())
-                                .quantity(i.getQuantity())
-                                .totalPrice(total)
-                                .build()
-                );
-
-                log.info("Computed order item: product={}, qty={}, unitPrice={}, total={}",
-                        product.getId(), i.getQuantity(), product.getPrice(), total);
-            }
+            List<UUID> productIds = request.getItems().stream()
+                    .map(OrderRequest.ItemRequest::getProductId)
+                    .toList();
 
+            log.atDebug().addKeyValue("products", productIds.size()).log("Fetching product details");
+            Map<UUID, ProductResponse> products = orderMetrics.stage(OrderMetrics.STAGE_PRODUCT_FETCH,
+                    () -> productClient.getProducts(productIds, jwtToken));
+
+            order = orderMetrics.stage(OrderMetrics.STAGE_PRICING, () -> pricingService.buildOrder(
+                    username, role, request.getItems(), OrderPricingService.unitPrices(products)));
+        } catch (ProductServiceUnavailableException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.error("Failed to fetch product details: {}", ex.getMessage());
             throw new ProductServiceException("Failed to fetch product details", ex);
         }
 
-        log.info("Calculating discount for role '{}' with subtotal={}", role, subtotal);
-
-        double discounted = discountFactory.getStrategy(role).applyDiscount(subtotal);
-
-        if (discounted > 500) {
-            log.info("Applying extra 5% discount for large order");
-            discounted = new LargeOrderDiscountStrategy().applyDiscount(discounted);
-        }
-
-        log.info("Final discounted total: {}", discounted);
-
         List<StockDeductRequest> stockDeductList = request.getItems().stream()
                 .map(i -> new StockDeductRequest(i.getProductId(), i.getQuantity()))
                 .toList();
 
+        OutboxEvent restore;
+        try {
+            restore = outboxService.armRestoreStock(stockDeductList);
+        } catch (Exception ex) {
+            log.error("Could not record the stock restore intent, not deducting: {}", ex.getMessage());
+            throw new OrderProcessingException("Could not save order", ex);
+        }
+
         try {
-            log.info("Sending stock deduction request to Product Service: {}", stockDeductList);
-            productClient.deductStock(stockDeductList, jwtToken);
-            log.info("Stock deduction successful");
+            log.atDebug().addKeyValue("items", stockDeductList).log("Sending stock deduction request to Product Service");
+            orderMetrics.stage(OrderMetrics.STAGE_DEDUCT_STOCK,
+                    () -> stockDeductionBatcher.deduct(stockDeductList, jwtToken, restore.getIdempotencyKey()));
+            log.debug("Stock deduction successful");
         } catch (Exception ex) {
+            orderMetrics.stage(OrderMetrics.STAGE_COMPENSATION, () -> abandonRestore(restore, ex));
+            if (ex instanceof ProductServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
             log.error("Stock deduction failed, ORDER WILL NOT BE CREATED: {}", ex.getMessage());
             throw new ProductServiceException("Stock deduction failed", ex);
         }
 
         try {
-            Order order = Order.builder()
-                    .username(username)
-                    .orderTotal(discounted)
-                    .items(orderItems)
-                    .build();
+            Order savedOrder = orderMetrics.stage(OrderMetrics.STAGE_SAVE, () -> transactionTemplate.execute(status -> {
+                Order saved = orderRepository.save(order);
+                summaryService.recordPlaced(saved);
+                outboxService.settle(restore);
+                idempotencyService.markCommitted();
+                return saved;
+            }));
+            orderMetrics.recordOrder(savedOrder.getItems().size(), savedOrder.getOrderTotal());
+            log.atInfo()
+                    .addKeyValue("orderId", savedOrder.getId())
+                    .addKeyValue("user", username)
+                    .addKeyValue("total", savedOrder.getOrderTotal())
+                    .log("Order saved");
+
+            return orderMapper.toResponse(savedOrder);
+        } catch (Exception ex) {
+            log.error("Failed to save order: {}", ex.getMessage());
+            orderMetrics.stage(OrderMetrics.STAGE_COMPENSATION, () -> releaseRestore(restore));
+
+            throw new OrderProcessingException("Could not save order (stock restore scheduled)", ex);
+        }
+    }
+
+    private void abandonRestore(OutboxEvent restore, Exception deductFailure) {
+        try {
+            outboxService.abandon(restore, deductFailure);
+        } catch (Exception ex) {
+            log.warn("Could not update stock restore {}, it becomes due at {}: {}",
+                    restore.getId(), restore.getNextAttemptAt(), ex.getMessage());
+        }
+    }
+
+    private void releaseRestore(OutboxEvent restore) {
+        try {
+            outboxService.releaseNow(restore);
+            log.info("Rollback scheduled: stock restore {} released to the outbox relay", restore.getId());
+        } catch (Exception ex) {
+            // still armed; the relay delivers it once outbox.restore-intent-delay has passed
+            log.warn("Could not release stock restore {} early, it becomes due at {}: {}",
+                    restore.getId(), restore.getNextAttemptAt(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Single-exchange variant of {@link #placeOrder}: the product service validates, prices and
+     * reserves the stock in one call. The reservation is confirmed right after the order commits;
+     * the confirmation is also queued in the outbox in the same transaction as the order, so the
+     * relay retries it until the reservation expires when the immediate confirm fails. A release
+     * is queued if anything fails before the order is saved.
+     */
+    private OrderResponse placeReservedOrder(String username, String role, String jwtToken, OrderRequest request) {
+
+        List<StockCheckRequest> reserveList = request.getItems().stream()
+                .map(i -> new StockCheckRequest(i.getProductId(), i.getQuantity()))
+                .toList();
+
+        stockAdmissionGate.admit(reserveList);
+
+        StockReservationResponse reservation;
+        try {
+            log.atDebug().addKeyValue("items", reserveList).log("Sending stock reservation request to Product Service");
+            reservation = orderMetrics.stage(OrderMetrics.STAGE_RESERVE_STOCK,
+                    () -> productClient.reserveStock(reserveList, reservationTtl, jwtToken));
+            log.atDebug()
+                    .addKeyValue("reservationId", reservation.getReservationId())
+                    .addKeyValue("expiresAt", reservation.getExpiresAt())
+                    .log("Stock reserved");
+        } catch (ProductServiceUnavailableException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            log.error("Stock reservation failed: {}", ex.getMessage());
+            throw new ProductServiceException("Stock reservation failed", ex);
+        }
 
-            orderItems.forEach(item -> item.setOrder(order));
+        Map<UUID, Long> unitPrices = OrderPricingService.unitPrices(reservation.getItems());
 
-            Order savedOrder = orderRepository.save(order);
-            log.info("Order successfully saved. OrderId={}", savedOrder.getId());
+        Order order;
+        try {
+            order = orderMetrics.stage(OrderMetrics.STAGE_PRICING,
+                    () -> pricingService.buildOrder(username, role, request.getItems(), unitPrices));
+        } catch (ProductServiceException ex) {
+            releaseReservation(reservation);
+            throw ex;
+        }
 
-            return toResponse(savedOrder);
+        Order savedOrder;
+        OutboxEvent[] confirmation = new OutboxEvent[1];
+        try {
+            savedOrder = orderMetrics.stage(OrderMetrics.STAGE_SAVE, () -> transactionTemplate.execute(status -> {
+                Order saved = orderRepository.save(order);
+                summaryService.recordPlaced(saved);
+                confirmation[0] = outboxService.enqueueConfirmReservation(saved.getId(), reservation);
+                idempotencyService.markCommitted();
+                return saved;
+            }));
+            orderMetrics.recordOrder(savedOrder.getItems().size(), savedOrder.getOrderTotal());
+            log.atInfo()
+                    .addKeyValue("orderId", savedOrder.getId())
+                    .addKeyValue("user", username)
+                    .addKeyValue("total", savedOrder.getOrderTotal())
+                    .addKeyValue("reservationId", reservation.getReservationId())
+                    .log("Order saved");
         } catch (Exception ex) {
             log.error("Failed to save order: {}", ex.getMessage());
-            try {
-                productClient.restoreStock(
-                        stockDeductList,
-                        jwtToken
-                );
-                log.info("Rollback completed: Stock restored successfully");
-            } catch (Exception rollbackEx) {
-                log.error("Rollback failed! Manual intervention required. Reason: {}",
-                        rollbackEx.getMessage(), rollbackEx);
-            }
+            releaseReservation(reservation);
+            throw new OrderProcessingException("Could not save order (reservation released)", ex);
+        }
+
+        orderMetrics.stage(OrderMetrics.STAGE_CONFIRM_RESERVATION,
+                () -> outboxRelay.deliverNow(confirmation[0], jwtToken));
+
+        return orderMapper.toResponse(savedOrder);
+    }
+
+    private void releaseReservation(StockReservationResponse reservation) {
+        orderMetrics.stage(OrderMetrics.STAGE_COMPENSATION, () -> queueRelease(reservation));
+    }
 
-            throw new OrderProcessingException("Could not save order (stock restored)", ex);
+    private void queueRelease(StockReservationResponse reservation) {
+        try {
+            outboxService.enqueueReleaseReservation(reservation.getReservationId());
+            log.info("Reservation {} release queued", reservation.getReservationId());
+        } catch (Exception ex) {
+            log.error("Queueing release of reservation {} failed, it will expire at {}. Reason: {}",
+                    reservation.getReservationId(), reservation.getExpiresAt(), ex.getMessage());
         }
     }
 
-    @Transactional
+    /**
+     * Pages orders in two queries: one for the page of ids and one that fetch-joins those
+     * orders with their items. The total count is a third query and only runs when
+     * {@code includeTotal} is set; otherwise the total fields are reported as -1.
+     */
+    @Transactional(readOnly = true)
     public PagedResponse<OrderResponse> getAllOrders(
             String username,
             int page,
             int size,
             String sortBy,
-            String sortDir
+            String sortDir,
+            boolean includeTotal
     ) {
+        page = Math.max(page, 0);
+        size = pageSize(size);
+
         log.info("Fetching orders for user={} page={} size={}", username, page, size);
 
         Sort sort = sortDir.equalsIgnoreCase("asc")
@@ -158,44 +303,112 @@ public class OrderService {
 
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        Page<Order> ordersPage =
-                username == null
-                        ? orderRepository.findAll(pageable)
-                        : orderRepository.findByUsername(username, pageable);
+        Slice<OrderKey> idSlice;
+        if (includeTotal) {
+            idSlice = username == null
+                    ? orderRepository.findIdPage(pageable)
+                    : orderRepository.findIdPageByUsername(username, pageable);
+        } else {
+            idSlice = username == null
+                    ? orderRepository.findIdSlice(pageable)
+                    : orderRepository.findIdSliceByUsername(username, pageable);
+        }
 
-        List<OrderResponse> content = ordersPage.getContent()
+        List<OrderResponse> content = loadWithItems(idSlice.getContent())
                 .stream()
-                .map(this::toResponse)
+                .map(orderMapper::toResponse)
                 .toList();
 
+        if (idSlice instanceof Page<OrderKey> idPage) {
+            return new PagedResponse<>(
+                    content,
+                    idPage.getNumber(),
+                    idPage.getSize(),
+                    idPage.getTotalElements(),
+                    idPage.getTotalPages(),
+                    idPage.isLast()
+            );
+        }
+
         return new PagedResponse<>(
                 content,
-                ordersPage.getNumber(),
-                ordersPage.getSize(),
-                ordersPage.getTotalElements(),
-                ordersPage.getTotalPages(),
-                ordersPage.isLast()
+                idSlice.getNumber(),
+                idSlice.getSize(),
+                -1,
+                -1,
+                idSlice.isLast()
+        );
+    }
+
+    /**
+     * Keyset variant of {@link #getAllOrders}: pages by {@code (created_at, id)} descending from
+     * an opaque cursor, so the cost of a page does not depend on how deep it is, and never
+     * counts the total.
+     */
+    @Transactional(readOnly = true)
+    public CursorPagedResponse<OrderResponse> getOrdersByCursor(String username, String cursor, int size) {
+
+        size = pageSize(size);
+
+        log.info("Fetching orders for user={} after cursor={} size={}", username, cursor, size);
+
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<OrderKey> keys;
+
+        if (cursor == null || cursor.isBlank()) {
+            keys = username == null
+                    ? orderRepository.findKeysetFirstIds(limit)
+                    : orderRepository.findKeysetFirstIdsByUsername(username, limit);
+        } else {
+            OrderCursor after = OrderCursor.decode(cursor);
+            keys = username == null
+                    ? orderRepository.findKeysetNextIds(after.createdAt(), after.id(), limit)
+                    : orderRepository.findKeysetNextIdsByUsername(username, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasNext = keys.size() > size;
+        List<Order> orders = loadWithItems(hasNext ? keys.subList(0, size) : keys);
+
+        String nextCursor = hasNext && !orders.isEmpty()
+                ? OrderCursor.after(orders.get(orders.size() - 1)).encode()
+                : null;
+
+        return new CursorPagedResponse<>(
+                orders.stream().map(orderMapper::toResponse).toList(),
+                size,
+                nextCursor,
+                hasNext
         );
     }
 
-    private OrderResponse toResponse(Order order) {
-
-        OrderResponse response = new OrderResponse();
-        response.setOrderId(order.getId());
-        response.setUsername(order.getUsername());
-        response.setOrderTotal(order.getOrderTotal());
-
-        List<OrderItemResponse> items = order.getItems().stream().map(item -> {
-            OrderItemResponse dto = new OrderItemResponse();
-            dto.setProductId(item.getProductId());
-            dto.setQuantity(item.getQuantity());
-            dto.setUnitPrice(item.getUnitPrice());
-            dto.setDiscountApplied(item.getDiscountApplied());
-            dto.setTotalPrice(item.getTotalPrice());
-            return dto;
-        }).toList();
-
-        response.setItems(items);
-        return response;
+    /**
+     * Clamps a requested page size to {@code [1, order.pagination.max-page-size]}.
+     */
+    private int pageSize(int requested) {
+        return Math.clamp(requested, 1, maxPageSize);
+    }
+
+    private List<Order> loadWithItems(List<OrderKey> keys) {
+
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+
+        Instant from = keys.get(0).createdAt();
+        Instant to = from;
+        List<UUID> ids = new ArrayList<>(keys.size());
+        for (OrderKey key : keys) {
+            ids.add(key.id());
+            from = key.createdAt().isBefore(from) ? key.createdAt() : from;
+            to = key.createdAt().isAfter(to) ? key.createdAt() : to;
+        }
+
+        Map<UUID, Order> byId = new HashMap<>();
+        orderRepository.findAllWithItemsByIdIn(ids, from, to).forEach(o -> byId.put(o.getId(), o));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
-}
\ No newline at end of file
+}
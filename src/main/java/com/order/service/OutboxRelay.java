@@ -0,0 +1,223 @@
+package com.order.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.client.ProductServiceClient;
+import com.order.dto.StockDeductRequest;
+import com.order.entities.OutboxEvent;
+import com.order.entities.Order;
+import com.order.repository.OrderRepository;
+import com.order.repository.OutboxEventRepository;
+import com.order.security.ServiceTokenProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Drains pending outbox events to the product service in batches. Rows are claimed with
+ * {@code FOR UPDATE SKIP LOCKED} in a short transaction that leases them by pushing
+ * {@code next_attempt_at} past the lease, so several instances can run the relay side by side
+ * without holding row locks across HTTP calls. Outcomes are recorded in a second short
+ * transaction; a relay that dies mid-batch leaves its rows to be picked up once the lease expires.
+ * Failed deliveries are retried with exponential backoff using the same idempotency key.
+ * <p>
+ * Events with a deadline (reservation confirmations) are retried no later than the deadline and
+ * given up once it has passed, or as soon as the product service rejects them with a 4xx; the
+ * order behind a confirmation that was given up is marked {@link Order.Status#FAILED}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderRepository orderRepository;
+    private final ProductServiceClient productClient;
+    private final ServiceTokenProvider serviceTokenProvider;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${outbox.relay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    @Value("${outbox.relay.backoff-max-ms:300000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.relay.lease-ms:60000}")
+    private long leaseMs;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:1000}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    private int relayBatch() {
+
+        List<OutboxEvent> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<UUID> failedOrders = new ArrayList<>();
+
+        for (OutboxEvent event : batch) {
+            if (event.getDeadline() != null && Instant.now().isAfter(event.getDeadline())) {
+                giveUp(event, "Deadline " + event.getDeadline() + " passed before delivery", failedOrders);
+                continue;
+            }
+            try {
+                dispatch(event, serviceTokenProvider.getToken());
+                event.setStatus(OutboxEvent.Status.PROCESSED);
+                event.setProcessedAt(Instant.now());
+                log.info("Delivered {} outbox event {}", event.getEventType(), event.getId());
+            } catch (Exception ex) {
+                if (event.getDeadline() != null && isClientError(ex)) {
+                    giveUp(event, "Rejected by the product service: " + ex.getMessage(), failedOrders);
+                } else {
+                    scheduleRetry(event, ex, failedOrders);
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxEventRepository.saveAll(batch);
+            if (!failedOrders.isEmpty()) {
+                orderRepository.updateStatus(failedOrders, Order.Status.FAILED);
+            }
+        });
+        return batch.size();
+    }
+
+    /**
+     * Delivers a just-committed event right away with the caller's token, and marks it processed
+     * when that works. When it does not, the event stays queued for the relay.
+     */
+    public boolean deliverNow(OutboxEvent event, String token) {
+        try {
+            dispatch(event, token);
+        } catch (Exception ex) {
+            log.warn("Immediate delivery of {} outbox event {} failed, the relay will retry. Reason: {}",
+                    event.getEventType(), event.getId(), ex.getMessage());
+            return false;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> outboxEventRepository.markProcessed(event.getId(), Instant.now()));
+        } catch (Exception ex) {
+            // delivered; the relay resends it with the same idempotency key
+            log.warn("Could not mark outbox event {} processed: {}", event.getId(), ex.getMessage());
+        }
+        return true;
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+            Instant leaseUntil = Instant.now().plusMillis(leaseMs);
+            batch.forEach(event -> event.setNextAttemptAt(leaseUntil));
+            return batch;
+        });
+    }
+
+    private void dispatch(OutboxEvent event, String token) throws Exception {
+
+        UUID idempotencyKey = event.getIdempotencyKey();
+
+        switch (event.getEventType()) {
+            case RESTORE_STOCK -> productClient.restoreStock(
+                    objectMapper.readValue(event.getPayload(), new TypeReference<List<StockDeductRequest>>() {}),
+                    token,
+                    idempotencyKey
+            );
+            case CONFIRM_RESERVATION -> productClient.confirmReservation(
+                    objectMapper.readValue(event.getPayload(), UUID.class),
+                    token,
+                    idempotencyKey
+            );
+            case RELEASE_RESERVATION -> productClient.releaseReservation(
+                    objectMapper.readValue(event.getPayload(), UUID.class),
+                    token,
+                    idempotencyKey
+            );
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, Exception ex, List<UUID> failedOrders) {
+
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(ex.getMessage());
+
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.Status.FAILED);
+            failOrder(event, failedOrders);
+            log.error("Outbox event {} ({}) failed after {} attempts! Manual intervention required. Reason: {}",
+                    event.getId(), event.getEventType(), attempts, ex.getMessage(), ex);
+            return;
+        }
+
+        Instant now = Instant.now();
+        long delayMs = backoffDelayMs(attempts, now, event.getDeadline());
+        event.setNextAttemptAt(now.plusMillis(delayMs));
+        log.warn("Outbox event {} ({}) failed, attempt {}/{}; retrying in {} ms. Reason: {}",
+                event.getId(), event.getEventType(), attempts, maxAttempts, delayMs, ex.getMessage());
+    }
+
+    /**
+     * Exponential backoff from {@code backoff-base-ms} up to {@code backoff-max-ms}; with a
+     * deadline, never more than half of the time left, so the last attempts still land before it.
+     */
+    long backoffDelayMs(int attempts, Instant now, Instant deadline) {
+        long delayMs = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempts - 1, 20));
+        if (deadline != null) {
+            delayMs = Math.min(delayMs, Math.max(0, Duration.between(now, deadline).toMillis() / 2));
+        }
+        return delayMs;
+    }
+
+    private void giveUp(OutboxEvent event, String reason, List<UUID> failedOrders) {
+        event.setStatus(OutboxEvent.Status.FAILED);
+        event.setLastError(reason);
+        failOrder(event, failedOrders);
+        log.atError()
+                .addKeyValue("eventId", event.getId())
+                .addKeyValue("type", event.getEventType())
+                .addKeyValue("orderId", event.getAggregateId())
+                .addKeyValue("reason", reason)
+                .log("Outbox event given up");
+    }
+
+    private static void failOrder(OutboxEvent event, List<UUID> failedOrders) {
+        if (event.getEventType() == OutboxEvent.Type.CONFIRM_RESERVATION && event.getAggregateId() != null) {
+            failedOrders.add(event.getAggregateId());
+        }
+    }
+
+    private static boolean isClientError(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof HttpClientErrorException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,189 @@
+package com.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.client.StockDeductionBatcher;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.StockReservationResponse;
+import com.order.entities.OutboxEvent;
+import com.order.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records calls to the product service that must eventually happen. Events join the caller's
+ * transaction when there is one, so they commit or roll back together with the order, and
+ * are delivered afterwards by {@link OutboxRelay}.
+ * <p>
+ * A stock deduction is covered by an armed restore written before it is sent: the restore only
+ * becomes due after {@code outbox.restore-intent-delay}, and the transaction that saves the order
+ * settles it. If that transaction never commits, or the deduction outcome is unknown, the relay
+ * delivers the restore.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.service.reservation-ttl:30s}")
+    private Duration reservationTtl;
+
+    @Value("${product.service.reservation-confirm-grace:2s}")
+    private Duration confirmGrace;
+
+    @Value("${outbox.restore-intent-delay:2m}")
+    private Duration restoreIntentDelay;
+
+    /**
+     * Writes, in its own transaction, a restore of {@code items} that the relay delivers once
+     * {@code outbox.restore-intent-delay} has passed unless it is settled first.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public OutboxEvent armRestoreStock(List<StockDeductRequest> items) {
+        return armRestoreStockAll(List.of(items)).get(0);
+    }
+
+    /**
+     * {@link #armRestoreStock} for several deductions in one transaction; the restores share
+     * one due time so {@link #settleAll} can settle them with a single statement.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<OutboxEvent> armRestoreStockAll(List<List<StockDeductRequest>> deductions) {
+        Instant armedUntil = Instant.now().plus(restoreIntentDelay).truncatedTo(ChronoUnit.MICROS);
+        List<OutboxEvent> armed = new ArrayList<>(deductions.size());
+        for (List<StockDeductRequest> items : deductions) {
+            armed.add(enqueue(null, OutboxEvent.Type.RESTORE_STOCK, items, armedUntil, null));
+        }
+        return armed;
+    }
+
+    /**
+     * Settles an armed restore in the caller's transaction, so it commits together with the
+     * order. Fails if the restore is already due or claimed by the relay, which rolls the order
+     * back rather than keeping it next to restored stock.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void settle(OutboxEvent armed) {
+        if (outboxEventRepository.settle(armed.getId(), armed.getNextAttemptAt(), Instant.now()) == 0) {
+            throw new IllegalStateException("Stock restore " + armed.getId() + " is already due");
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void settleAll(List<OutboxEvent> armed) {
+        Map<Instant, List<UUID>> byDueTime = new HashMap<>();
+        armed.forEach(e -> byDueTime.computeIfAbsent(e.getNextAttemptAt(), t -> new ArrayList<>()).add(e.getId()));
+        Instant now = Instant.now();
+        byDueTime.forEach((armedUntil, ids) -> {
+            if (outboxEventRepository.settleAll(ids, armedUntil, now) != ids.size()) {
+                throw new IllegalStateException("Some of " + ids.size() + " stock restores are already due");
+            }
+        });
+    }
+
+    /**
+     * Drops an armed restore whose deduction is known not to have happened.
+     */
+    @Transactional
+    public void disarm(OutboxEvent armed) {
+        if (outboxEventRepository.settle(armed.getId(), armed.getNextAttemptAt(), Instant.now()) == 0) {
+            log.error("Stock restore {} was already due; stock that was never deducted may be restored",
+                    armed.getId());
+        }
+    }
+
+    /**
+     * Resolves an armed restore after its deduction failed: dropped when the deduction certainly
+     * did not happen, otherwise handed to the relay right away.
+     */
+    @Transactional
+    public void abandon(OutboxEvent armed, Throwable deductFailure) {
+        if (StockDeductionBatcher.notApplied(deductFailure)) {
+            disarm(armed);
+        } else {
+            releaseNow(armed);
+        }
+    }
+
+    /**
+     * Hands an armed restore to the relay right away, for deductions whose order will not be saved.
+     */
+    @Transactional
+    public void releaseNow(OutboxEvent armed) {
+        outboxEventRepository.makeDue(armed.getId(), armed.getNextAttemptAt(), Instant.now());
+    }
+
+    /**
+     * Queues the confirmation as a fallback for the synchronous confirm the caller sends after
+     * commit: the relay only picks it up after {@code reservation-confirm-grace}, and gives up
+     * on it once the reservation has expired.
+     */
+    @Transactional
+    public OutboxEvent enqueueConfirmReservation(UUID orderId, StockReservationResponse reservation) {
+        Instant now = Instant.now();
+        return enqueue(orderId, OutboxEvent.Type.CONFIRM_RESERVATION, reservation.getReservationId(),
+                now.plus(confirmGrace), expiry(reservation, now));
+    }
+
+    @Transactional
+    public void enqueueReleaseReservation(UUID reservationId) {
+        enqueue(null, OutboxEvent.Type.RELEASE_RESERVATION, reservationId, Instant.now(), null);
+    }
+
+    private OutboxEvent enqueue(
+            UUID aggregateId,
+            OutboxEvent.Type type,
+            Object payload,
+            Instant nextAttemptAt,
+            Instant deadline
+    ) {
+
+        OutboxEvent event;
+        try {
+            event = OutboxEvent.builder()
+                    .aggregateId(aggregateId)
+                    .eventType(type)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .idempotencyKey(UUID.randomUUID())
+                    .nextAttemptAt(nextAttemptAt)
+                    .deadline(deadline)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize " + type + " outbox payload", e);
+        }
+
+        outboxEventRepository.save(event);
+        log.info("Queued {} outbox event, idempotencyKey={}", type, event.getIdempotencyKey());
+        return event;
+    }
+
+    private Instant expiry(StockReservationResponse reservation, Instant now) {
+        if (reservation.getExpiresAt() != null) {
+            try {
+                return OffsetDateTime.parse(reservation.getExpiresAt()).toInstant();
+            } catch (DateTimeParseException e) {
+                log.warn("Unreadable reservation expiry '{}', assuming {} from now",
+                        reservation.getExpiresAt(), reservationTtl);
+            }
+        }
+        return now.plus(reservationTtl);
+    }
+}
@@ -0,0 +1,145 @@
+package com.order.service;
+
+import com.order.client.ReactiveProductServiceClient;
+import com.order.client.StockAdmissionGate;
+import com.order.dto.OrderRequest;
+import com.order.dto.StockCheckRequest;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.OrderResponse;
+import com.order.entities.Order;
+import com.order.entities.OutboxEvent;
+import com.order.exception.OrderProcessingException;
+import com.order.exception.ProductServiceException;
+import com.order.exception.ProductServiceUnavailableException;
+import com.order.metrics.OrderMetrics;
+import com.order.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking variant of {@link OrderService#placeOrder}. Product service calls go through
+ * WebClient and the JPA save runs on a small bounded scheduler, so no request thread waits
+ * on I/O. Only validation and pricing are bounded by {@code order.reactive.pricing-timeout},
+ * so a timeout never fires between a deduction and its save; a failed save is compensated
+ * through the outbox. The deduction and its save run detached from the caller's subscription,
+ * so a cancelled request (client gone, an upstream timeout) still ends in either a saved order
+ * or a queued stock restore instead of stopping between the two.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOrderService {
+
+    private final ReactiveProductServiceClient productClient;
+    private final StockAdmissionGate stockAdmissionGate;
+    private final OrderPricingService pricingService;
+    private final OrderMapper orderMapper;
+    private final OrderRepository orderRepository;
+    private final OutboxService outboxService;
+    private final OrderMetrics orderMetrics;
+    private final UserOrderSummaryService summaryService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Qualifier("orderPersistenceScheduler")
+    private final Scheduler persistenceScheduler;
+
+    @Value("${order.reactive.pricing-timeout:5s}")
+    private Duration pricingTimeout;
+
+    public Mono<OrderResponse> placeOrder(String username, String role, String jwtToken, OrderRequest request) {
+
+        log.atInfo()
+                .addKeyValue("user", username)
+                .addKeyValue("items", request.getItems().size())
+                .log("Placing async order");
+
+        List<StockCheckRequest> stockCheckList = request.getItems().stream()
+                .map(i -> new StockCheckRequest(i.getProductId(), i.getQuantity()))
+                .toList();
+
+        List<UUID> productIds = request.getItems().stream()
+                .map(OrderRequest.ItemRequest::getProductId)
+                .toList();
+
+        List<StockDeductRequest> stockDeductList = request.getItems().stream()
+                .map(i -> new StockDeductRequest(i.getProductId(), i.getQuantity()))
+                .toList();
+
+        Mono<Order> pricedOrder = Mono.fromRunnable(() -> stockAdmissionGate.admit(stockCheckList))
+                .then(productClient.validateStock(stockCheckList, jwtToken)
+                        .onErrorMap(ex -> !(ex instanceof ProductServiceUnavailableException),
+                                ex -> new ProductServiceException("Stock validation failed", ex)))
+                .then(productClient.getProducts(productIds, jwtToken)
+                        .map(products -> pricingService.buildOrder(
+                                username, role, request.getItems(), OrderPricingService.unitPrices(products)))
+                        .onErrorMap(ex -> !(ex instanceof ProductServiceUnavailableException),
+                                ex -> new ProductServiceException("Failed to fetch product details", ex)))
+                .timeout(pricingTimeout)
+                .onErrorMap(TimeoutException.class,
+                        ex -> new ProductServiceException("Order pricing timed out after " + pricingTimeout, ex));
+
+        return pricedOrder
+                .flatMap(order -> Mono.fromFuture(deductAndSave(order, stockDeductList, jwtToken).toFuture(), true))
+                .doOnNext(saved -> orderMetrics.recordOrder(saved.getItems().size(), saved.getOrderTotal()))
+                .map(orderMapper::toResponse)
+                .doOnSuccess(response -> orderMetrics.recordOutcome(OrderMetrics.FLOW_REACTIVE, null))
+                .doOnError(ex -> {
+                    orderMetrics.recordOutcome(OrderMetrics.FLOW_REACTIVE, ex);
+                    log.error("Async order for user '{}' failed: {}", username, ex.getMessage());
+                });
+    }
+
+    /**
+     * Arms a restore of the deduction before sending it, and settles it in the transaction that
+     * saves the order; see {@link OutboxService#armRestoreStock}.
+     */
+    private Mono<Order> deductAndSave(Order order, List<StockDeductRequest> stockDeductList, String jwtToken) {
+        return Mono.fromCallable(() -> outboxService.armRestoreStock(stockDeductList))
+                .subscribeOn(persistenceScheduler)
+                .onErrorMap(ex -> new OrderProcessingException("Could not save order", ex))
+                .flatMap(restore -> productClient.deductStock(stockDeductList, jwtToken, restore.getIdempotencyKey())
+                        .onErrorResume(ex -> compensate(() -> outboxService.abandon(restore, ex)).then(Mono.error(ex)))
+                        .onErrorMap(ex -> !(ex instanceof ProductServiceUnavailableException),
+                                ex -> new ProductServiceException("Stock deduction failed", ex))
+                        .then(save(order, restore)));
+    }
+
+    private Mono<Order> save(Order order, OutboxEvent restore) {
+        return Mono.fromCallable(() -> transactionTemplate.execute(status -> {
+                    Order saved = orderRepository.save(order);
+                    summaryService.recordPlaced(saved);
+                    outboxService.settle(restore);
+                    return saved;
+                }))
+                .subscribeOn(persistenceScheduler)
+                .doOnNext(saved -> log.atInfo()
+                        .addKeyValue("orderId", saved.getId())
+                        .addKeyValue("user", saved.getUsername())
+                        .addKeyValue("total", saved.getOrderTotal())
+                        .log("Order saved"))
+                .onErrorResume(ex -> compensate(() -> outboxService.releaseNow(restore))
+                        .then(Mono.error(new OrderProcessingException("Could not save order (stock restore scheduled)", ex))));
+    }
+
+    // the armed restore is delivered when it falls due even if this fails, so failures only get logged
+    private Mono<Void> compensate(Runnable action) {
+        return Mono.fromRunnable(action)
+                .subscribeOn(persistenceScheduler)
+                .onErrorResume(ex -> {
+                    log.warn("Could not update the stock restore, it stays armed: {}", ex.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
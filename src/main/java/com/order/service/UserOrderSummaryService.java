@@ -0,0 +1,169 @@
+package com.order.service;
+
+import com.order.dto.response.UserOrderSummaryResponse;
+import com.order.entities.Order;
+import com.order.entities.OrderItem;
+import com.order.exception.ResourceNotFoundException;
+import com.order.money.Money;
+import com.order.repository.UserOrderSummaryRepository;
+import com.order.repository.UserOrderSummaryRepository.ProductDelta;
+import com.order.repository.UserOrderSummaryRepository.SummaryDelta;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keeps {@code user_order_summaries} in step with placed orders. Deltas recorded inside a
+ * transaction are merged per user and per product and written with one batch of upserts just
+ * before commit, so each summary row is locked once per transaction and only for the tail end
+ * of it, however many orders the transaction saved.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserOrderSummaryService {
+
+    private final UserOrderSummaryRepository summaryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.summary.top-products:5}")
+    private int topProducts;
+
+    @Value("${order.summary.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    public void recordPlaced(Order order) {
+        recordPlaced(List.of(order));
+    }
+
+    public void recordPlaced(Collection<Order> orders) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingDeltas deltas = new PendingDeltas();
+            orders.forEach(deltas::add);
+            transactionTemplate.executeWithoutResult(status -> deltas.write());
+            return;
+        }
+
+        PendingDeltas deltas = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            deltas = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, deltas);
+            TransactionSynchronizationManager.registerSynchronization(deltas);
+        }
+        orders.forEach(deltas::add);
+    }
+
+    @Transactional(readOnly = true)
+    public UserOrderSummaryResponse getSummary(String username) {
+
+        UserOrderSummaryRepository.Summary summary = summaryRepository.find(username)
+                .orElseThrow(() -> new ResourceNotFoundException("No orders found for user: " + username));
+
+        List<UserOrderSummaryResponse.ProductTotal> products = summaryRepository.topProducts(username, topProducts)
+                .stream()
+                .map(p -> new UserOrderSummaryResponse.ProductTotal(p.productId(), p.quantity(), p.orderCount()))
+                .toList();
+
+        return new UserOrderSummaryResponse(
+                summary.username(),
+                summary.orderCount(),
+                summary.totalSpent(),
+                summary.lastOrderAt(),
+                products
+        );
+    }
+
+    /**
+     * Recomputes the summaries from {@code orders}, {@code rebuild-batch-size} users per short
+     * transaction, so placements only ever wait for the batch holding their user. Only one
+     * instance rebuilds at a time; returns {@code false} when another one already is.
+     */
+    @Scheduled(cron = "${order.summary.rebuild-cron:0 30 3 * * *}")
+    public boolean rebuild() {
+
+        long start = System.nanoTime();
+        int[] users = new int[1];
+
+        boolean ran = summaryRepository.runExclusively(() -> {
+            String after = "";
+            List<String> batch;
+            while (!(batch = summaryRepository.nextUsernames(after, rebuildBatchSize)).isEmpty()) {
+                List<String> usernames = batch;
+                transactionTemplate.executeWithoutResult(status -> summaryRepository.rebuild(usernames));
+                users[0] += usernames.size();
+                after = usernames.get(usernames.size() - 1);
+            }
+        });
+
+        if (!ran) {
+            log.info("User order summary rebuild already running on another instance, skipped");
+            return false;
+        }
+        log.atInfo()
+                .addKeyValue("users", users[0])
+                .addKeyValue("tookMs", (System.nanoTime() - start) / 1_000_000)
+                .log("Rebuilt user order summaries");
+        return true;
+    }
+
+    private final class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<String, long[]> totals = new TreeMap<>();
+        private final Map<String, Instant> lastOrderAt = new HashMap<>();
+        private final Map<String, Map<UUID, long[]>> products = new TreeMap<>();
+
+        void add(Order order) {
+
+            String username = order.getUsername();
+            Instant createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : Instant.now();
+
+            long[] total = totals.computeIfAbsent(username, u -> new long[2]);
+            total[0]++;
+            total[1] += order.getOrderTotal();
+            lastOrderAt.merge(username, createdAt, (a, b) -> a.isAfter(b) ? a : b);
+
+            Map<UUID, long[]> perProduct = products.computeIfAbsent(username, u -> new TreeMap<>());
+            Set<UUID> seen = new HashSet<>();
+            for (OrderItem item : order.getItems()) {
+                long[] counts = perProduct.computeIfAbsent(item.getProductId(), p -> new long[2]);
+                counts[0] += item.getQuantity();
+                if (seen.add(item.getProductId())) {
+                    counts[1]++;
+                }
+            }
+        }
+
+        void write() {
+
+            List<SummaryDelta> summaryDeltas = new ArrayList<>(totals.size());
+            totals.forEach((username, t) -> summaryDeltas.add(
+                    new SummaryDelta(username, t[0], Money.toDecimal(t[1]), lastOrderAt.get(username))));
+
+            List<ProductDelta> productDeltas = new ArrayList<>();
+            products.forEach((username, perProduct) -> perProduct.forEach((productId, c) ->
+                    productDeltas.add(new ProductDelta(username, productId, c[0], c[1]))));
+
+            summaryRepository.apply(summaryDeltas, productDeltas);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(UserOrderSummaryService.this);
+        }
+    }
+}
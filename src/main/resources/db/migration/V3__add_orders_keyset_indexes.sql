@@ -0,0 +1,12 @@
+-- V3__add_orders_keyset_indexes.sql
+
+-- Keyset pagination orders by (created_at, id), so created_at must never be NULL
+UPDATE orders SET created_at = now() WHERE created_at IS NULL;
+ALTER TABLE orders ALTER COLUMN created_at SET NOT NULL;
+
+-- Per-user and global keyset scans
+CREATE INDEX idx_orders_username_created_at_id ON orders (username, created_at DESC, id DESC);
+CREATE INDEX idx_orders_created_at_id ON orders (created_at DESC, id DESC);
+
+-- Item lookups by order (batched fetch of a page)
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
@@ -0,0 +1,33 @@
+-- V5__create_user_order_summaries.sql
+
+-- PER-USER ORDER AGGREGATES, maintained on every placement
+CREATE TABLE user_order_summaries (
+    username VARCHAR(100) PRIMARY KEY,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_spent DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    last_order_at TIMESTAMP WITH TIME ZONE,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- PER-USER PRODUCT COUNTERS, read through the index for "top products"
+CREATE TABLE user_product_totals (
+    username VARCHAR(100) NOT NULL,
+    product_id UUID NOT NULL,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (username, product_id)
+);
+
+CREATE INDEX idx_user_product_totals_top ON user_product_totals (username, quantity DESC);
+
+-- Backfill from existing orders
+INSERT INTO user_order_summaries (username, order_count, total_spent, last_order_at)
+SELECT username, count(*), sum(order_total), max(created_at)
+FROM orders
+GROUP BY username;
+
+INSERT INTO user_product_totals (username, product_id, quantity, order_count)
+SELECT o.username, i.product_id, sum(i.quantity), count(DISTINCT o.id)
+FROM orders o
+JOIN order_items i ON i.order_id = o.id
+GROUP BY o.username, i.product_id;
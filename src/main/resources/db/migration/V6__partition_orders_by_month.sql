@@ -0,0 +1,70 @@
+-- V6__partition_orders_by_month.sql
+
+-- Monthly range partitions on created_at (UTC month boundaries). order_items carries its
+-- order's created_at so both tables are partitioned identically; partitions are named
+-- orders_yYYYYmMM / order_items_yYYYYmMM and maintained by OrderPartitionManager.
+CREATE TABLE orders_partitioned (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    username VARCHAR(100) NOT NULL,
+    order_total DECIMAL(10, 2) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT now(),
+    CONSTRAINT pk_orders PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE order_items_partitioned (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    order_id UUID NOT NULL,
+    order_created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    product_id UUID NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10, 2) NOT NULL,
+    discount_applied DECIMAL(10, 2) DEFAULT 0,
+    total_price DECIMAL(10, 2) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT now(),
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT now(),
+    CONSTRAINT pk_order_items PRIMARY KEY (id, order_created_at),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id, order_created_at)
+        REFERENCES orders_partitioned (id, created_at) ON DELETE CASCADE
+) PARTITION BY RANGE (order_created_at);
+
+-- Partitions from the oldest existing order up to three months ahead
+DO $$
+DECLARE
+    cur_month DATE := date_trunc('month', COALESCE((SELECT min(created_at) FROM orders), now()) AT TIME ZONE 'UTC')::date;
+    last_month DATE := (date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months')::date;
+    lower_bound TEXT;
+    upper_bound TEXT;
+BEGIN
+    WHILE cur_month <= last_month LOOP
+        lower_bound := to_char(cur_month, 'YYYY-MM-DD') || ' 00:00:00+00';
+        upper_bound := to_char(cur_month + INTERVAL '1 month', 'YYYY-MM-DD') || ' 00:00:00+00';
+        EXECUTE format('CREATE TABLE %I PARTITION OF orders_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'orders_' || to_char(cur_month, '"y"YYYY"m"MM'), lower_bound, upper_bound);
+        EXECUTE format('CREATE TABLE %I PARTITION OF order_items_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'order_items_' || to_char(cur_month, '"y"YYYY"m"MM'), lower_bound, upper_bound);
+        cur_month := cur_month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO orders_partitioned (id, username, order_total, created_at, updated_at)
+SELECT id, username, order_total, created_at, updated_at
+FROM orders;
+
+INSERT INTO order_items_partitioned (id, order_id, order_created_at, product_id, quantity,
+                                     unit_price, discount_applied, total_price, created_at, updated_at)
+SELECT i.id, i.order_id, o.created_at, i.product_id, i.quantity,
+       i.unit_price, i.discount_applied, i.total_price, i.created_at, i.updated_at
+FROM order_items i
+JOIN orders o ON o.id = i.order_id;
+
+DROP TABLE order_items;
+DROP TABLE orders;
+
+ALTER TABLE orders_partitioned RENAME TO orders;
+ALTER TABLE order_items_partitioned RENAME TO order_items;
+
+-- Created on the parents, so every partition (including future ones) gets its own copy
+CREATE INDEX idx_orders_username_created_at_id ON orders (username, created_at DESC, id DESC);
+CREATE INDEX idx_orders_created_at_id ON orders (created_at DESC, id DESC);
+CREATE INDEX idx_order_items_order_id ON order_items (order_id, order_created_at);
@@ -0,0 +1,8 @@
+-- V7__add_order_status_and_outbox_deadline.sql
+
+-- PLACED, or FAILED when the stock reservation backing the order could not be confirmed
+ALTER TABLE orders ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'PLACED';
+
+-- Events that are useless after a point in time (reservation confirmations past the
+-- reservation expiry) carry that point; the relay gives up on them once it has passed
+ALTER TABLE outbox_events ADD COLUMN deadline TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,5 @@
+-- V8__add_idempotency_claim_token.sql
+
+-- Identifies the request that holds an IN_PROGRESS key, so a request whose claim expired and
+-- was taken over can no longer commit, complete or release it
+ALTER TABLE idempotency_keys ADD COLUMN claim_token UUID;
@@ -0,0 +1,139 @@
+package com.order.client;
+
+import com.order.dto.StockCheckRequest;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.ProductResponse;
+import com.order.exception.StockUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StockAdmissionGateTest {
+
+    private final UUID productId = UUID.randomUUID();
+
+    private final StockAdmissionGate gate = gate(true, Duration.ofMinutes(1));
+
+    @Test
+    void admitsEverythingWhenDisabled() {
+        StockAdmissionGate disabled = gate(false, Duration.ofMinutes(1));
+        disabled.observe(product(0, true), System.nanoTime());
+
+        assertAdmitted(disabled, 5);
+    }
+
+    @Test
+    void admitsProductsWithoutASnapshot() {
+        assertAdmitted(gate, 1_000);
+    }
+
+    @Test
+    void rejectsMoreThanTheSnapshotShows() {
+        gate.observe(product(3, true), System.nanoTime());
+
+        assertAdmitted(gate, 3);
+        assertRejected(gate, 4);
+    }
+
+    @Test
+    void rejectsUnorderableProducts() {
+        gate.observe(product(10, false), System.nanoTime());
+        assertRejected(gate, 1);
+
+        ProductResponse deleted = product(10, true);
+        deleted.setDeleted(true);
+        gate.observe(deleted, System.nanoTime());
+        assertRejected(gate, 1);
+    }
+
+    @Test
+    void subtractsDeductionsStartedAfterTheSnapshotArrived() {
+        gate.observe(product(5, true), System.nanoTime());
+
+        gate.deducted(deduction(2), System.nanoTime());
+
+        assertAdmitted(gate, 3);
+        assertRejected(gate, 4);
+    }
+
+    @Test
+    void ignoresDeductionsThatMayAlreadyBeInTheSnapshot() {
+        long deductionStartedAt = System.nanoTime();
+        gate.observe(product(5, true), System.nanoTime());
+
+        gate.deducted(deduction(2), deductionStartedAt);
+
+        assertAdmitted(gate, 5);
+    }
+
+    @Test
+    void addsRestoresCompletedAfterTheFetchStarted() {
+        gate.observe(product(1, true), System.nanoTime());
+
+        gate.restored(deduction(2));
+
+        assertAdmitted(gate, 3);
+    }
+
+    @Test
+    void ignoresRestoresCompletedBeforeTheFetchStarted() {
+        // a snapshot whose fetch started after any restore that completes now
+        gate.observe(product(1, true), System.nanoTime() + Duration.ofHours(1).toNanos());
+
+        gate.restored(deduction(2));
+
+        assertRejected(gate, 2);
+    }
+
+    @Test
+    void forgetsSnapshotsAfterTheFreshnessWindow() throws InterruptedException {
+        StockAdmissionGate shortLived = gate(true, Duration.ofMillis(50));
+        shortLived.observe(product(0, true), System.nanoTime());
+        assertRejected(shortLived, 1);
+
+        Thread.sleep(150);
+
+        assertAdmitted(shortLived, 1);
+    }
+
+    @Test
+    void drainsEachRequestedProductOnce() {
+        UUID other = UUID.randomUUID();
+        gate.observe(product(5, true), System.nanoTime());
+        gate.observe(ProductResponse.builder().id(other).quantity(5).available(true).build(), System.nanoTime());
+
+        gate.admit(List.of(new StockCheckRequest(productId, 1)));
+
+        assertThat(gate.drainRequested(10)).containsExactly(productId);
+        assertThat(gate.drainRequested(10)).isEmpty();
+    }
+
+    private StockAdmissionGate gate(boolean enabled, Duration freshness) {
+        return new StockAdmissionGate(enabled, freshness, 1_000, new SimpleMeterRegistry());
+    }
+
+    private ProductResponse product(int quantity, boolean available) {
+        return ProductResponse.builder().id(productId).quantity(quantity).available(available).build();
+    }
+
+    private List<StockDeductRequest> deduction(int quantity) {
+        return List.of(new StockDeductRequest(productId, quantity));
+    }
+
+    private void assertAdmitted(StockAdmissionGate gate, int quantity) {
+        assertThatCode(() -> gate.admit(List.of(new StockCheckRequest(productId, quantity))))
+                .doesNotThrowAnyException();
+    }
+
+    private void assertRejected(StockAdmissionGate gate, int quantity) {
+        assertThatThrownBy(() -> gate.admit(List.of(new StockCheckRequest(productId, quantity))))
+                .isInstanceOf(StockUnavailableException.class);
+    }
+}
@@ -0,0 +1,196 @@
+package com.order.client;
+
+import com.order.dto.BatchStockDeductRequest;
+import com.order.dto.StockDeductRequest;
+import com.order.dto.response.BatchStockDeductResponse;
+import com.order.exception.ProductServiceException;
+import com.order.exception.ProductServiceUnavailableException;
+import com.order.exception.StockUnavailableException;
+import com.order.security.ServiceTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockDeductionBatcherTest {
+
+    private static final List<StockDeductRequest> ITEMS = List.of(new StockDeductRequest(UUID.randomUUID(), 1));
+
+    private final ProductServiceClient productClient = mock(ProductServiceClient.class);
+    private final ServiceTokenProvider serviceTokenProvider = mock(ServiceTokenProvider.class);
+
+    private StockDeductionBatcher batcher;
+
+    @AfterEach
+    void stop() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void deductsDirectlyWhenDisabled() {
+        batcher = batcher(false, Duration.ofMillis(3), 64, Duration.ofSeconds(2), 4);
+        UUID reference = UUID.randomUUID();
+
+        batcher.deduct(ITEMS, "user-jwt", reference);
+
+        verify(productClient).deductStock(ITEMS, "user-jwt", reference);
+        verify(productClient, never()).deductStockBatch(anyList(), anyString());
+    }
+
+    @Test
+    void sendsABatchOfOneAsAPlainDeductionWithTheUsersToken() {
+        batcher = batcher(true, Duration.ofMillis(3), 64, Duration.ofSeconds(2), 4);
+        UUID reference = UUID.randomUUID();
+
+        batcher.deduct(ITEMS, "user-jwt", reference);
+
+        verify(productClient).deductStock(ITEMS, "user-jwt", reference);
+        verify(productClient, never()).deductStockBatch(anyList(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchesWithTheServiceTokenAndHandsEachCallerItsOwnResult() throws Exception {
+        batcher = batcher(true, Duration.ofSeconds(1), 2, Duration.ofSeconds(5), 4);
+        UUID deducted = UUID.randomUUID();
+        UUID rejected = UUID.randomUUID();
+        when(serviceTokenProvider.getToken()).thenReturn("service-jwt");
+        when(productClient.deductStockBatch(anyList(), eq("service-jwt"))).thenReturn(Map.of(
+                deducted.toString(), new BatchStockDeductResponse.Result(deducted.toString(), true, null),
+                rejected.toString(), new BatchStockDeductResponse.Result(rejected.toString(), false, "Out of stock")));
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> batcher.deduct(ITEMS, "jwt-a", deducted));
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> batcher.deduct(ITEMS, "jwt-b", rejected));
+
+        first.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(StockUnavailableException.class)
+                .hasRootCauseMessage("Out of stock");
+
+        ArgumentCaptor<List<BatchStockDeductRequest.Entry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(productClient).deductStockBatch(entries.capture(), eq("service-jwt"));
+        assertThat(entries.getValue())
+                .extracting(BatchStockDeductRequest.Entry::getReference, BatchStockDeductRequest.Entry::getUserToken)
+                .containsExactlyInAnyOrder(
+                        tuple(deducted.toString(), "jwt-a"),
+                        tuple(rejected.toString(), "jwt-b"));
+    }
+
+    @Test
+    void reportsAMissingEntryAsAnUnknownOutcome() {
+        batcher = batcher(true, Duration.ofSeconds(1), 2, Duration.ofSeconds(5), 4);
+        UUID answered = UUID.randomUUID();
+        when(serviceTokenProvider.getToken()).thenReturn("service-jwt");
+        when(productClient.deductStockBatch(anyList(), anyString())).thenReturn(Map.of(
+                answered.toString(), new BatchStockDeductResponse.Result(answered.toString(), true, null)));
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> batcher.deduct(ITEMS, "jwt-a", answered));
+        CompletableFuture<Void> missing = CompletableFuture.runAsync(() -> batcher.deduct(ITEMS, "jwt-b", UUID.randomUUID()));
+
+        assertThat(first).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(missing).failsWithin(Duration.ofSeconds(5))
+                .withThrowableThat()
+                .havingRootCause()
+                .isExactlyInstanceOf(ProductServiceException.class)
+                .satisfies(e -> assertThat(StockDeductionBatcher.notApplied(e)).isFalse());
+    }
+
+    @Test
+    void withdrawsADeductionStillQueuedAfterMaxWait() throws Exception {
+        // one sender: while it and the dispatcher are busy, the next deduction stays queued
+        batcher = batcher(true, Duration.ofMillis(1), 64, Duration.ofMillis(200), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Semaphore entered = new Semaphore(0);
+        doAnswer(invocation -> {
+            entered.release();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(productClient).deductStock(anyList(), anyString(), any(UUID.class));
+
+        CompletableFuture<Void> onSender = CompletableFuture.runAsync(() -> batcher.deduct(ITEMS, "jwt", UUID.randomUUID()));
+        assertThat(entered.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> onDispatcher = CompletableFuture.runAsync(() -> batcher.deduct(ITEMS, "jwt", UUID.randomUUID()));
+        assertThat(entered.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+
+        UUID queued = UUID.randomUUID();
+        assertThatThrownBy(() -> batcher.deduct(ITEMS, "jwt", queued))
+                .isInstanceOf(ProductServiceUnavailableException.class)
+                .satisfies(e -> assertThat(StockDeductionBatcher.notApplied(e)).isTrue());
+
+        release.countDown();
+        assertThat(onSender).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(onDispatcher).succeedsWithin(Duration.ofSeconds(5));
+        verify(productClient, never()).deductStock(anyList(), anyString(), eq(queued));
+    }
+
+    @Test
+    void waitsPastMaxWaitForADeductionAlreadySent() throws Exception {
+        batcher = batcher(true, Duration.ofMillis(1), 64, Duration.ofMillis(100), 4);
+        CountDownLatch sent = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sent.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(productClient).deductStock(anyList(), anyString(), any(UUID.class));
+
+        CompletableFuture<Void> deduction = CompletableFuture.runAsync(() -> batcher.deduct(ITEMS, "jwt", UUID.randomUUID()));
+        assertThat(sent.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(300);
+
+        assertThat(deduction).isNotDone();
+        release.countDown();
+        assertThat(deduction).succeedsWithin(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void treatsOnlyUnsentOrRejectedDeductionsAsNotApplied() {
+        assertThat(StockDeductionBatcher.notApplied(new ProductServiceUnavailableException("full", null))).isTrue();
+        assertThat(StockDeductionBatcher.notApplied(new StockUnavailableException("out of stock"))).isTrue();
+        assertThat(StockDeductionBatcher.notApplied(
+                new ProductServiceException("wrapped", HttpClientErrorException.create(
+                        HttpStatus.CONFLICT, "Conflict", null, null, null)))).isTrue();
+
+        assertThat(StockDeductionBatcher.notApplied(HttpServerErrorException.create(
+                HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null))).isFalse();
+        assertThat(StockDeductionBatcher.notApplied(new ProductServiceException("timed out"))).isFalse();
+    }
+
+    private StockDeductionBatcher batcher(
+            boolean enabled,
+            Duration window,
+            int maxBatchSize,
+            Duration maxWait,
+            int maxConcurrentBatches
+    ) {
+        return new StockDeductionBatcher(productClient, serviceTokenProvider, new SimpleMeterRegistry(),
+                enabled, window, maxBatchSize, 100, maxWait, maxConcurrentBatches);
+    }
+}
@@ -0,0 +1,233 @@
+package com.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.exception.BadRequestException;
+import com.order.exception.IdempotencyConflictException;
+import com.order.repository.IdempotencyKeyRepository;
+import com.order.repository.IdempotencyKeyRepository.Entry;
+import com.order.repository.IdempotencyKeyRepository.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    record Receipt(String orderId) {
+    }
+
+    private static final String USER = "alice";
+    private static final String KEY = "key-1";
+    private static final Map<String, Object> REQUEST = Map.of("productId", "p-1", "quantity", 2);
+
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(repository, objectMapper);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(service, "inFlightTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(service, "waitTimeout", Duration.ofMillis(300));
+        ReflectionTestUtils.setField(service, "pollIntervalMs", 10L);
+    }
+
+    @Test
+    void rejectsBlankAndOverlongKeys() {
+        assertThatThrownBy(() -> execute(" ", () -> new Receipt("o-1")))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> execute("k".repeat(256), () -> new Receipt("o-1")))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void runsTheRequestAndStoresItsResponseUnderTheClaim() throws Exception {
+        claimSucceeds();
+
+        Receipt receipt = execute(KEY, () -> new Receipt("o-1"));
+
+        assertThat(receipt).isEqualTo(new Receipt("o-1"));
+        UUID token = claimedToken();
+        verify(repository).complete(eq(USER), eq(KEY), eq(token),
+                eq(objectMapper.writeValueAsString(receipt)), any(Instant.class));
+        verify(repository, never()).release(anyString(), anyString(), any());
+    }
+
+    @Test
+    void replaysTheStoredResponseOfTheSameRequest() throws Exception {
+        when(repository.find(USER, KEY)).thenReturn(Optional.of(
+                new Entry(hash(REQUEST), Status.COMPLETED, objectMapper.writeValueAsString(new Receipt("o-1")))));
+        AtomicInteger runs = new AtomicInteger();
+
+        Receipt receipt = execute(KEY, () -> {
+            runs.incrementAndGet();
+            return new Receipt("o-2");
+        });
+
+        assertThat(receipt).isEqualTo(new Receipt("o-1"));
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void rejectsAKeyReusedForADifferentRequest() {
+        when(repository.find(USER, KEY)).thenReturn(Optional.of(new Entry("other-hash", Status.COMPLETED, "{}")));
+
+        assertThatThrownBy(() -> execute(KEY, () -> new Receipt("o-1")))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .hasMessageContaining("different request");
+    }
+
+    @Test
+    void releasesTheKeyWhenTheRequestFails() {
+        claimSucceeds();
+
+        assertThatThrownBy(() -> execute(KEY, () -> {
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+
+        UUID token = claimedToken();
+        verify(repository).release(USER, KEY, token);
+        verify(repository, never()).complete(anyString(), anyString(), any(), anyString(), any());
+    }
+
+    @Test
+    void returnsTheResponseEvenWhenStoringItFails() {
+        claimSucceeds();
+        doThrow(new IllegalStateException("db down"))
+                .when(repository).complete(anyString(), anyString(), any(), anyString(), any());
+
+        assertThat(execute(KEY, () -> new Receipt("o-1"))).isEqualTo(new Receipt("o-1"));
+        verify(repository, never()).release(anyString(), anyString(), any());
+    }
+
+    @Test
+    void marksTheKeyCommittedUnderTheCurrentClaim() {
+        claimSucceeds();
+        when(repository.commit(eq(USER), eq(KEY), any(UUID.class), any(Instant.class))).thenReturn(true);
+
+        execute(KEY, () -> {
+            service.markCommitted();
+            return new Receipt("o-1");
+        });
+
+        UUID token = claimedToken();
+        verify(repository).commit(eq(USER), eq(KEY), eq(token), any(Instant.class));
+    }
+
+    @Test
+    void refusesToCommitAfterTheClaimWasTakenOver() {
+        claimSucceeds();
+        when(repository.commit(anyString(), anyString(), any(UUID.class), any(Instant.class))).thenReturn(false);
+
+        assertThatThrownBy(() -> execute(KEY, () -> {
+            service.markCommitted();
+            return new Receipt("o-1");
+        })).isInstanceOf(IdempotencyConflictException.class);
+
+        UUID token = claimedToken();
+        verify(repository).release(USER, KEY, token);
+    }
+
+    @Test
+    void ignoresCommitsOutsideAnIdempotentRequest() {
+        service.markCommitted();
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void neverRunsAgainAKeyThatCommittedWithoutAStoredResponse() {
+        when(repository.find(USER, KEY)).thenReturn(Optional.of(new Entry(hash(REQUEST), Status.COMMITTED, null)));
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThatThrownBy(() -> execute(KEY, () -> {
+            runs.incrementAndGet();
+            return new Receipt("o-2");
+        }))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .hasMessageContaining("already processed");
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void letsALocalRetryWaitForTheOriginalsResponse() throws Exception {
+        when(repository.claim(eq(USER), eq(KEY), anyString(), any(UUID.class), any(Instant.class)))
+                .thenReturn(true, false);
+        when(repository.find(USER, KEY)).thenReturn(Optional.of(new Entry(hash(REQUEST), Status.IN_PROGRESS, null)));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        CompletableFuture<Receipt> original = CompletableFuture.supplyAsync(() -> execute(KEY, () -> {
+            running.countDown();
+            await(finish);
+            return new Receipt("o-1");
+        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Receipt> retry = CompletableFuture.supplyAsync(() -> execute(KEY, () -> new Receipt("o-2")));
+        Thread.sleep(50);
+        finish.countDown();
+
+        assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo(new Receipt("o-1"));
+        assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo(new Receipt("o-1"));
+    }
+
+    private Receipt execute(String key, Supplier<Receipt> action) {
+        return service.execute(USER, key, REQUEST, Receipt.class, action);
+    }
+
+    private void claimSucceeds() {
+        when(repository.claim(eq(USER), eq(KEY), anyString(), any(UUID.class), any(Instant.class))).thenReturn(true);
+    }
+
+    private UUID claimedToken() {
+        ArgumentCaptor<UUID> token = ArgumentCaptor.forClass(UUID.class);
+        verify(repository).claim(eq(USER), eq(KEY), eq(hash(REQUEST)), token.capture(), any(Instant.class));
+        return token.getValue();
+    }
+
+    private String hash(Object request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsBytes(request)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
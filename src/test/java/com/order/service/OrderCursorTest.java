@@ -0,0 +1,92 @@
+package com.order.service;
+
+import com.order.entities.Order;
+import com.order.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCursorTest {
+
+    @Test
+    void pointsAfterTheLastOrderOfAPage() {
+        Order last = Order.builder()
+                .id(UUID.randomUUID())
+                .createdAt(Instant.parse("2026-03-01T10:15:30.123456Z"))
+                .build();
+
+        OrderCursor cursor = OrderCursor.decode(OrderCursor.after(last).encode());
+
+        assertThat(cursor.createdAt()).isEqualTo(last.getCreatedAt());
+        assertThat(cursor.id()).isEqualTo(last.getId());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1970-01-01T00:00:00Z",
+            "1969-12-31T23:59:59.999999Z",
+            "2026-03-01T00:00:00.000001Z",
+            "2026-03-31T23:59:59.999999999Z",
+            "+10000-01-01T00:00:00Z"
+    })
+    void roundTripsTimestampsAtTheirBoundaries(String createdAt) {
+        OrderCursor cursor = new OrderCursor(Instant.parse(createdAt), UUID.randomUUID());
+
+        assertThat(OrderCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void tellsApartOrdersCreatedInTheSameInstant() {
+        Instant createdAt = Instant.parse("2026-03-01T10:15:30Z");
+        OrderCursor first = new OrderCursor(createdAt, UUID.randomUUID());
+        OrderCursor second = new OrderCursor(createdAt, UUID.randomUUID());
+
+        assertThat(first.encode()).isNotEqualTo(second.encode());
+        assertThat(OrderCursor.decode(second.encode()).id()).isEqualTo(second.id());
+    }
+
+    @Test
+    void encodesAsAnUrlSafeTokenWithoutPadding() {
+        for (int i = 0; i < 100; i++) {
+            String token = new OrderCursor(Instant.now(), UUID.randomUUID()).encode();
+            assertThat(token).matches("[A-Za-z0-9_-]+");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not a cursor", "%%%", "MTIz"})
+    void rejectsMalformedTokens(String token) {
+        assertThatThrownBy(() -> OrderCursor.decode(token))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1772359200:not-a-uuid",
+            "1772359200.0:not-a-uuid",
+            "x.0:0191f3a2-7c00-7000-8000-000000000000",
+            "1772359200.0",
+            ".0:0191f3a2-7c00-7000-8000-000000000000"
+    })
+    void rejectsTokensWithMissingOrInvalidParts(String raw) {
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> OrderCursor.decode(token))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void rejectsAMissingToken() {
+        assertThatThrownBy(() -> OrderCursor.decode(null))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,209 @@
+package com.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.order.client.ProductServiceClient;
+import com.order.entities.Order;
+import com.order.entities.OutboxEvent;
+import com.order.repository.OrderRepository;
+import com.order.repository.OutboxEventRepository;
+import com.order.security.ServiceTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private static final long LEASE_MS = 60_000;
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ProductServiceClient productClient = mock(ProductServiceClient.class);
+    private final ServiceTokenProvider serviceTokenProvider = mock(ServiceTokenProvider.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(serviceTokenProvider.getToken()).thenReturn("service-jwt");
+
+        relay = new OutboxRelay(outboxEventRepository, orderRepository, productClient, serviceTokenProvider,
+                new TransactionTemplate(transactionManager), objectMapper);
+        ReflectionTestUtils.setField(relay, "batchSize", 50);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 3);
+        ReflectionTestUtils.setField(relay, "backoffBaseMs", 1_000L);
+        ReflectionTestUtils.setField(relay, "backoffMaxMs", 300_000L);
+        ReflectionTestUtils.setField(relay, "leaseMs", LEASE_MS);
+    }
+
+    @Test
+    void backsOffExponentiallyUpToTheMaximum() {
+        Instant now = Instant.now();
+
+        assertThat(relay.backoffDelayMs(1, now, null)).isEqualTo(1_000);
+        assertThat(relay.backoffDelayMs(2, now, null)).isEqualTo(2_000);
+        assertThat(relay.backoffDelayMs(5, now, null)).isEqualTo(16_000);
+        assertThat(relay.backoffDelayMs(9, now, null)).isEqualTo(256_000);
+        assertThat(relay.backoffDelayMs(10, now, null)).isEqualTo(300_000);
+        assertThat(relay.backoffDelayMs(1_000, now, null)).isEqualTo(300_000);
+    }
+
+    @Test
+    void keepsRetriesWithinHalfOfTheTimeLeftBeforeTheDeadline() {
+        Instant now = Instant.now();
+
+        assertThat(relay.backoffDelayMs(1, now, now.plusSeconds(10))).isEqualTo(1_000);
+        assertThat(relay.backoffDelayMs(4, now, now.plusSeconds(10))).isEqualTo(5_000);
+        assertThat(relay.backoffDelayMs(4, now, now.plusMillis(1))).isZero();
+        assertThat(relay.backoffDelayMs(4, now, now.minusSeconds(1))).isZero();
+    }
+
+    @Test
+    void leasesClaimedEventsBeforeDeliveringThem() throws Exception {
+        OutboxEvent event = restore();
+        when(outboxEventRepository.lockNextBatch(50)).thenReturn(List.of(event));
+        AtomicReference<Instant> leasedUntil = new AtomicReference<>();
+        doAnswer(invocation -> {
+            leasedUntil.set(event.getNextAttemptAt());
+            return null;
+        }).when(productClient).restoreStock(anyList(), anyString(), any(UUID.class));
+
+        Instant before = Instant.now();
+        relay.relay();
+        Instant after = Instant.now();
+
+        assertThat(leasedUntil.get()).isBetween(before.plusMillis(LEASE_MS), after.plusMillis(LEASE_MS));
+        verify(productClient).restoreStock(anyList(), eq("service-jwt"), eq(event.getIdempotencyKey()));
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.PROCESSED);
+        assertThat(event.getProcessedAt()).isNotNull();
+        verify(outboxEventRepository).saveAll(List.of(event));
+    }
+
+    @Test
+    void replacesTheLeaseWithTheBackoffAfterAFailedDelivery() throws Exception {
+        OutboxEvent event = restore();
+        when(outboxEventRepository.lockNextBatch(50)).thenReturn(List.of(event));
+        doThrow(new ResourceAccessException("timed out"))
+                .when(productClient).restoreStock(anyList(), anyString(), any(UUID.class));
+
+        Instant before = Instant.now();
+        relay.relay();
+        Instant after = Instant.now();
+
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.PENDING);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getLastError()).isEqualTo("timed out");
+        assertThat(event.getNextAttemptAt()).isBetween(before.plusMillis(1_000), after.plusMillis(1_000));
+        verify(outboxEventRepository).saveAll(List.of(event));
+    }
+
+    @Test
+    void failsTheEventAfterTheLastAttempt() throws Exception {
+        OutboxEvent event = restore();
+        event.setAttempts(2);
+        when(outboxEventRepository.lockNextBatch(50)).thenReturn(List.of(event));
+        doThrow(new ResourceAccessException("timed out"))
+                .when(productClient).restoreStock(anyList(), anyString(), any(UUID.class));
+
+        relay.relay();
+
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.FAILED);
+        assertThat(event.getAttempts()).isEqualTo(3);
+        verify(orderRepository, never()).updateStatus(anyList(), any());
+    }
+
+    @Test
+    void givesUpConfirmationsPastTheirDeadlineAndFailsTheOrder() throws Exception {
+        OutboxEvent event = confirmation(Instant.now().minusSeconds(1));
+        when(outboxEventRepository.lockNextBatch(50)).thenReturn(List.of(event));
+
+        relay.relay();
+
+        verifyNoInteractions(productClient);
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.FAILED);
+        verify(orderRepository).updateStatus(List.of(event.getAggregateId()), Order.Status.FAILED);
+    }
+
+    @Test
+    void givesUpConfirmationsTheProductServiceRejects() throws Exception {
+        OutboxEvent event = confirmation(Instant.now().plusSeconds(30));
+        when(outboxEventRepository.lockNextBatch(50)).thenReturn(List.of(event));
+        doThrow(HttpClientErrorException.create(HttpStatus.GONE, "Gone", null, null, null))
+                .when(productClient).confirmReservation(any(UUID.class), anyString(), any(UUID.class));
+
+        relay.relay();
+
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.FAILED);
+        assertThat(event.getAttempts()).isZero();
+        verify(orderRepository).updateStatus(List.of(event.getAggregateId()), Order.Status.FAILED);
+    }
+
+    @Test
+    void marksAnEventDeliveredRightAwayAsProcessed() throws Exception {
+        OutboxEvent event = confirmation(Instant.now().plusSeconds(30));
+
+        assertThat(relay.deliverNow(event, "user-jwt")).isTrue();
+
+        verify(productClient).confirmReservation(any(UUID.class), eq("user-jwt"), eq(event.getIdempotencyKey()));
+        verify(outboxEventRepository).markProcessed(eq(event.getId()), any(Instant.class));
+    }
+
+    @Test
+    void leavesAnEventThatCouldNotBeDeliveredRightAwayToTheRelay() throws Exception {
+        OutboxEvent event = confirmation(Instant.now().plusSeconds(30));
+        doThrow(new ResourceAccessException("timed out"))
+                .when(productClient).confirmReservation(any(UUID.class), anyString(), any(UUID.class));
+
+        assertThat(relay.deliverNow(event, "user-jwt")).isFalse();
+
+        verify(outboxEventRepository, never()).markProcessed(any(), any());
+    }
+
+    private OutboxEvent restore() {
+        return OutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .eventType(OutboxEvent.Type.RESTORE_STOCK)
+                .payload("[{\"productId\":\"" + UUID.randomUUID() + "\",\"quantity\":2}]")
+                .idempotencyKey(UUID.randomUUID())
+                .build();
+    }
+
+    private OutboxEvent confirmation(Instant deadline) throws Exception {
+        return OutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .aggregateId(UUID.randomUUID())
+                .eventType(OutboxEvent.Type.CONFIRM_RESERVATION)
+                .payload(objectMapper.writeValueAsString(UUID.randomUUID()))
+                .idempotencyKey(UUID.randomUUID())
+                .deadline(deadline)
+                .nextAttemptAt(Instant.now().minus(Duration.ofSeconds(1)))
+                .build();
+    }
+}